@@ -0,0 +1,36 @@
+package academy.devdojo.user_service.benchmark;
+
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.request.UserPostRequest;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+final class UserFixtures {
+    static final String POST_REQUEST_JSON = """
+            {"name":"Letícia","second name":"Ribeiro","email":"leticiaribeiro@email.com"}""";
+
+    private UserFixtures() {
+    }
+
+    static User user(long id) {
+        return User.builder()
+                .id(id)
+                .firstName("Ana" + id)
+                .lastName("Oliveira")
+                .email("anaoliveira%d@email.com".formatted(id))
+                .build();
+    }
+
+    static List<User> users(int size) {
+        return LongStream.rangeClosed(1, size).mapToObj(UserFixtures::user).toList();
+    }
+
+    static UserPostRequest postRequest(String email) {
+        var request = new UserPostRequest();
+        request.setFirstName("Letícia");
+        request.setLastName("Ribeiro");
+        request.setEmail(email);
+        return request;
+    }
+}
@@ -0,0 +1,56 @@
+package academy.devdojo.user_service.benchmark;
+
+import academy.devdojo.user_service.mapper.UserMapperImpl;
+import academy.devdojo.user_service.request.UserPostRequest;
+import academy.devdojo.user_service.response.UserGetResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserJsonBenchmark {
+    private ObjectReader postRequestReader;
+    private ObjectWriter getResponseWriter;
+    private ObjectWriter getResponseListWriter;
+    private byte[] postRequestJson;
+    private UserGetResponse getResponse;
+    private List<UserGetResponse> getResponseList;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        var mapper = new UserMapperImpl();
+
+        postRequestReader = objectMapper.readerFor(UserPostRequest.class);
+        getResponseWriter = objectMapper.writerFor(UserGetResponse.class);
+        getResponseListWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, UserGetResponse.class));
+        postRequestJson = UserFixtures.POST_REQUEST_JSON.getBytes(StandardCharsets.UTF_8);
+        getResponse = mapper.toUserGetResponse(UserFixtures.user(1));
+        getResponseList = mapper.toUserGetResponseList(UserFixtures.users(100));
+    }
+
+    @Benchmark
+    public UserPostRequest readPostRequest() throws IOException {
+        return postRequestReader.readValue(postRequestJson);
+    }
+
+    @Benchmark
+    public byte[] writeGetResponse() throws IOException {
+        return getResponseWriter.writeValueAsBytes(getResponse);
+    }
+
+    @Benchmark
+    public byte[] writeGetResponseList() throws IOException {
+        return getResponseListWriter.writeValueAsBytes(getResponseList);
+    }
+}
@@ -0,0 +1,156 @@
+package academy.devdojo.user_service.benchmark;
+
+import academy.devdojo.user_service.UserServiceApplication;
+import academy.devdojo.user_service.repository.ReactiveUserRepository;
+import academy.devdojo.user_service.repository.UserRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load test: boots the application on a random port over H2 and runs one virtual-thread client per
+ * simulated caller against a mix of cached reads ({@code GET v1/users/{id}}) and keyset pages that always reach the
+ * database. Prints throughput, latency percentiles and how many calls the bulkhead turned away with 503.
+ * <p>
+ * Arguments: {@code [clients] [seconds] [permits] [servlet|reactive]}, defaulting to 1000 clients for 20 seconds on a
+ * 10 connection pool against the servlet stack. {@code reactive} boots the WebFlux + R2DBC profile with the same pool
+ * size so both deployments can be compared on the same mix; it has no entity cache, so every call reaches the database.
+ * The servlet stack runs without its per-client rate limit: every simulated caller comes from localhost, and the reactive
+ * stack has no limiter to compare against.
+ */
+public final class UserLoadTest {
+    private static final int USERS = 10_000;
+    private static final String H2_OPTIONS = "DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MySQL;DATABASE_TO_LOWER=true;NON_KEYWORDS=USER";
+
+    private UserLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var clients = intArg(args, 0, 1_000);
+        var seconds = intArg(args, 1, 20);
+        var permits = intArg(args, 2, 10);
+        var reactive = args.length > 3 && args[3].equals("reactive");
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        var context = reactive ? startReactive(permits) : startServlet(permits);
+        try {
+            var users = UserFixtures.users(USERS).stream().map(user -> user.withId(null)).toList();
+            if (reactive) {
+                var repository = context.getBean(ReactiveUserRepository.class);
+                Flux.fromIterable(users).concatMap(repository::insert).then().block();
+            } else {
+                context.getBean(UserRepository.class).insertAll(users);
+            }
+            var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            System.out.printf("stack=%s%n", reactive ? "reactive" : "servlet");
+            run("http://localhost:%d/v1/users".formatted(port), clients, Duration.ofSeconds(seconds));
+        } finally {
+            context.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startServlet(int permits) {
+        return new SpringApplicationBuilder(UserServiceApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load;" + H2_OPTIONS,
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.hikari.maximum-pool-size=" + permits,
+                        "--user-service.concurrency.permits=" + permits,
+                        "--user-service.rate-limit.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.mvc.log-resolved-exception=false",
+                        "--logging.level.root=warn");
+    }
+
+    private static ConfigurableApplicationContext startReactive(int permits) {
+        return new SpringApplicationBuilder(UserServiceApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .profiles("reactive")
+                .run(
+                        "--server.port=0",
+                        "--spring.r2dbc.url=r2dbc:h2:mem:///load?options=" + H2_OPTIONS,
+                        "--spring.r2dbc.username=sa",
+                        "--spring.r2dbc.pool.max-size=" + permits,
+                        "--spring.flyway.url=jdbc:h2:mem:load;" + H2_OPTIONS,
+                        "--spring.flyway.user=sa",
+                        "--logging.level.root=warn");
+    }
+
+    private static void run(String url, int clients, Duration duration) throws Exception {
+        var ok = new LongAdder();
+        var busy = new LongAdder();
+        var failed = new LongAdder();
+        var results = new ArrayList<Future<long[]>>();
+        var deadline = System.nanoTime() + duration.toNanos();
+
+        try (var http = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+             var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                results.add(executor.submit(() -> {
+                    var samples = new long[1 << 14];
+                    var count = 0;
+                    while (System.nanoTime() < deadline) {
+                        var random = ThreadLocalRandom.current();
+                        var uri = random.nextBoolean()
+                                ? url + "/" + random.nextInt(1, USERS + 1)
+                                : url + "?limit=20&after=" + random.nextInt(USERS);
+                        var start = System.nanoTime();
+                        try {
+                            var status = http.send(HttpRequest.newBuilder(URI.create(uri)).build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+                            (status == 200 ? ok : status == 503 ? busy : failed).increment();
+                        } catch (Exception e) {
+                            failed.increment();
+                        }
+                        if (count < samples.length) {
+                            samples[count++] = System.nanoTime() - start;
+                        }
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+        }
+
+        var latencies = new ArrayList<long[]>();
+        for (var result : results) {
+            latencies.add(result.get());
+        }
+        report(clients, duration, ok.sum(), busy.sum(), failed.sum(), latencies);
+    }
+
+    private static void report(int clients, Duration duration, long ok, long busy, long failed, List<long[]> latencies) {
+        var all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        var total = ok + busy + failed;
+        System.out.printf("clients=%d duration=%ds requests=%d throughput=%.0f req/s ok=%d busy_503=%d failed=%d%n",
+                clients, duration.toSeconds(), total, total / (double) duration.toSeconds(), ok, busy, failed);
+        System.out.printf("latency_ms p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 0.999),
+                all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index && args[index].matches("\\d+") ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,43 @@
+package academy.devdojo.user_service.benchmark;
+
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.mapper.UserMapper;
+import academy.devdojo.user_service.mapper.UserMapperImpl;
+import academy.devdojo.user_service.request.UserPostRequest;
+import academy.devdojo.user_service.response.UserGetResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserMapperBenchmark {
+    private final UserMapper mapper = new UserMapperImpl();
+    private UserPostRequest postRequest;
+    private User user;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        postRequest = UserFixtures.postRequest("leticiaribeiro@email.com");
+        user = UserFixtures.user(1);
+        users = UserFixtures.users(100);
+    }
+
+    @Benchmark
+    public User toUser() {
+        return mapper.toUser(postRequest);
+    }
+
+    @Benchmark
+    public UserGetResponse toUserGetResponse() {
+        return mapper.toUserGetResponse(user);
+    }
+
+    @Benchmark
+    public List<UserGetResponse> toUserGetResponseList() {
+        return mapper.toUserGetResponseList(users);
+    }
+}
@@ -0,0 +1,99 @@
+package academy.devdojo.user_service.benchmark;
+
+import academy.devdojo.user_service.UserServiceApplication;
+import academy.devdojo.user_service.cache.UserCache;
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.projection.UserSummary;
+import academy.devdojo.user_service.repository.UserRepository;
+import academy.devdojo.user_service.response.UserGetResponse;
+import academy.devdojo.user_service.service.UserService;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the {@link UserService} paths against the application context backed by an in-memory H2 database. The outbox
+ * relay and the background polls are off, so no scheduled work competes with the measured calls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserServiceBenchmark {
+    private static final int USERS = 1_000;
+    private final AtomicLong emails = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private UserService service;
+    private UserCache cache;
+    private Cache secondLevelCache;
+    private Long firstId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MySQL;DATABASE_TO_LOWER=true",
+                        "--spring.datasource.username=sa",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.restart.enabled=false",
+                        "--user-service.outbox.relay-enabled=false",
+                        "--user-service.outbox.poll-interval=1h",
+                        "--logging.level.root=warn");
+        service = context.getBean(UserService.class);
+        cache = context.getBean(UserCache.class);
+        secondLevelCache = context.getBean(EntityManagerFactory.class).getCache();
+
+        var users = context.getBean(UserRepository.class)
+                .insertAll(UserFixtures.users(USERS).stream().map(user -> user.withId(null)).toList());
+        firstId = users.getFirst().getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User findById() {
+        return service.findByIdOrThrowNotFound(firstId);
+    }
+
+    /**
+     * {@link #findById()} with the user evicted from the {@link UserCache} and from Hibernate's {@code user} region first,
+     * so every call reaches the database; the two evictions are part of the measured time.
+     */
+    @Benchmark
+    public User findByIdCacheMiss() {
+        cache.invalidate(firstId);
+        secondLevelCache.evict(User.class, firstId);
+        return service.findByIdOrThrowNotFound(firstId);
+    }
+
+    @Benchmark
+    public List<UserGetResponse> findAll() {
+        return service.findAll(null);
+    }
+
+    @Benchmark
+    public List<UserGetResponse> findAllByName() {
+        return service.findAll("Ana1");
+    }
+
+    @Benchmark
+    public List<UserSummary> findAllAfter() {
+        return service.findAllAfter(null, firstId, 100);
+    }
+
+    @Benchmark
+    public User save() {
+        var email = "benchmark%d@email.com".formatted(emails.incrementAndGet());
+        return service.save(User.builder().firstName("Letícia").lastName("Ribeiro").email(email).build());
+    }
+}
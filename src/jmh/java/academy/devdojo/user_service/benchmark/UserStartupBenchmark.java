@@ -0,0 +1,164 @@
+package academy.devdojo.user_service.benchmark;
+
+import academy.devdojo.user_service.UserServiceApplication;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start benchmark: launches the jar extracted by the {@code startup} Maven profile in a fresh JVM, over H2, and
+ * measures the time from process start to the first answered {@code GET v1/users/{id}} and the resident memory right
+ * after it. Each step adds one startup optimization to the previous one: the {@code prod} profile (lazy beans, no
+ * schema validation), the CDS archive, and the AOT-generated bean definitions.
+ * <p>
+ * Arguments: {@code [runs] [budget-ms]}, defaulting to 5 runs per step and no budget. With a budget, the process exits
+ * with status 1 when the median time to first request of the last step exceeds it.
+ * Build first with {@code mvn -Pstartup,benchmark -DskipTests verify}; the directory comes from
+ * {@code -Dstartup.directory}, {@code target/startup} by default.
+ */
+public final class UserStartupBenchmark {
+    private static final String H2_OPTIONS = "DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MySQL;DATABASE_TO_LOWER=true;NON_KEYWORDS=USER";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private UserStartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var runs = intArg(args, 0, 5);
+        var budgetMillis = intArg(args, 1, 0);
+        var directory = Paths.get(System.getProperty("startup.directory", "target/startup")).toAbsolutePath();
+        var jar = findApplicationJar(directory);
+        var archive = directory.resolve("application.jsa");
+        var h2 = Paths.get(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+        var steps = List.of(
+                new Step("jar", List.of(), List.of()),
+                new Step("prod", List.of(), List.of("--spring.profiles.active=prod")),
+                new Step("prod+cds", List.of("-XX:SharedArchiveFile=" + archive, "-Xlog:cds=off", "-Xlog:cds+dynamic=off"),
+                        List.of("--spring.profiles.active=prod")),
+                new Step("prod+cds+aot", List.of("-XX:SharedArchiveFile=" + archive, "-Xlog:cds=off", "-Xlog:cds+dynamic=off", "-Dspring.aot.enabled=true"),
+                        List.of("--spring.profiles.active=prod")));
+
+        Result last = null;
+        for (var step : steps) {
+            var samples = new ArrayList<Sample>();
+            for (int run = 0; run < runs; run++) {
+                samples.add(launch(step, jar, h2, directory.resolve("startup-%s.log".formatted(step.name()))));
+            }
+            last = Result.of(step.name(), samples);
+            System.out.printf("step=%s runs=%d first_request_ms p50=%d min=%d max=%d rss_mb p50=%d%n",
+                    last.step(), runs, last.medianMillis(), last.minMillis(), last.maxMillis(), last.medianRssMb());
+        }
+
+        if (budgetMillis > 0 && last.medianMillis() > budgetMillis) {
+            System.out.printf("step=%s p50=%dms is over the %dms budget%n", last.step(), last.medianMillis(), budgetMillis);
+            System.exit(1);
+        }
+    }
+
+    private static Sample launch(Step step, Path jar, Path h2, Path log) throws Exception {
+        var port = freePort();
+        var command = new ArrayList<String>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(step.jvmArgs());
+        command.addAll(List.of("-cp", jar + java.io.File.pathSeparator + h2, UserServiceApplication.class.getName()));
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:startup;" + H2_OPTIONS,
+                "--spring.datasource.username=sa",
+                "--spring.jpa.properties.jakarta.persistence.database-product-name=H2",
+                "--spring.jpa.properties.jakarta.persistence.database-major-version=2",
+                "--spring.jpa.properties.jakarta.persistence.database-minor-version=2",
+                "--logging.level.root=warn"));
+        command.addAll(step.applicationArgs());
+
+        var start = System.nanoTime();
+        var process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try (var http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build()) {
+            var request = HttpRequest.newBuilder(URI.create("http://localhost:%d/v1/users/1".formatted(port))).build();
+            var deadline = start + STARTUP_TIMEOUT.toNanos();
+            while (true) {
+                if (!process.isAlive() || System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Step '%s' did not answer, see %s".formatted(step.name(), log));
+                }
+                try {
+                    http.send(request, HttpResponse.BodyHandlers.discarding());
+                    break;
+                } catch (IOException e) {
+                    Thread.sleep(5);
+                }
+            }
+            var elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new Sample(elapsedMillis, rssMb(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static Path findApplicationJar(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No extracted jar in %s, build with -Pstartup".formatted(directory)));
+        }
+    }
+
+    /**
+     * Resident set size from {@code /proc}, or -1 where there is none.
+     */
+    private static long rssMb(long pid) throws IOException {
+        var status = Paths.get("/proc", String.valueOf(pid), "status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        try (var lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                    .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")) / 1024)
+                    .findFirst()
+                    .orElse(-1);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index && args[index].matches("\\d+") ? Integer.parseInt(args[index]) : defaultValue;
+    }
+
+    private record Step(String name, List<String> jvmArgs, List<String> applicationArgs) {
+    }
+
+    private record Sample(long millis, long rssMb) {
+    }
+
+    private record Result(String step, long medianMillis, long minMillis, long maxMillis, long medianRssMb) {
+
+        static Result of(String step, List<Sample> samples) {
+            var millis = samples.stream().mapToLong(Sample::millis).sorted().toArray();
+            var rss = samples.stream().mapToLong(Sample::rssMb).sorted().toArray();
+            return new Result(step, median(millis), millis[0], millis[millis.length - 1], median(rss));
+        }
+
+        private static long median(long[] sorted) {
+            return sorted[sorted.length / 2];
+        }
+    }
+}
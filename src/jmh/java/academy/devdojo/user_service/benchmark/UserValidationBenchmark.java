@@ -0,0 +1,51 @@
+package academy.devdojo.user_service.benchmark;
+
+import academy.devdojo.user_service.request.UserPostRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserValidationBenchmark {
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private UserPostRequest validRequest;
+    private UserPostRequest invalidEmailRequest;
+    private UserPostRequest backtrackingEmailRequest;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validRequest = UserFixtures.postRequest("leticiaribeiro@email.com");
+        invalidEmailRequest = UserFixtures.postRequest("leticiaribeiro");
+        backtrackingEmailRequest = UserFixtures.postRequest("a@" + "a.".repeat(30) + "a");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserPostRequest>> validEmail() {
+        return validator.validate(validRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserPostRequest>> invalidEmail() {
+        return validator.validate(invalidEmailRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserPostRequest>> backtrackingEmail() {
+        return validator.validate(backtrackingEmailRequest);
+    }
+}
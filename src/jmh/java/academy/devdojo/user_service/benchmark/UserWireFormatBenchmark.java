@@ -0,0 +1,80 @@
+package academy.devdojo.user_service.benchmark;
+
+import academy.devdojo.user_service.mapper.UserMapperImpl;
+import academy.devdojo.user_service.response.UserGetResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes and decodes the {@code GET v1/users} list as JSON and as Smile, with and without the gzip the server applies
+ * above {@code server.compression.min-response-size}. The payload size of each combination is printed at the end of
+ * the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserWireFormatBenchmark {
+    @Param({"json", "smile"})
+    private String format;
+    @Param({"false", "true"})
+    private boolean gzip;
+    @Param({"500"})
+    private int size;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<UserGetResponse> users;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        var builder = Jackson2ObjectMapperBuilder.json();
+        ObjectMapper objectMapper = format.equals("smile") ? builder.factory(new SmileFactory()).build() : builder.build();
+        var listType = objectMapper.getTypeFactory().constructCollectionType(List.class, UserGetResponse.class);
+
+        writer = objectMapper.writerFor(listType);
+        reader = objectMapper.readerFor(listType);
+        users = new UserMapperImpl().toUserGetResponseList(UserFixtures.users(size));
+        payload = encode();
+    }
+
+    @TearDown
+    public void printPayloadSize() {
+        System.out.printf("%nformat=%s gzip=%s users=%d bytes=%d%n", format, gzip, size, payload.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        if (!gzip) {
+            return writer.writeValueAsBytes(users);
+        }
+
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new GZIPOutputStream(bytes)) {
+            writer.writeValue(out, users);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<UserGetResponse> decode() throws IOException {
+        if (!gzip) {
+            return reader.readValue(payload);
+        }
+
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return reader.readValue(in);
+        }
+    }
+}
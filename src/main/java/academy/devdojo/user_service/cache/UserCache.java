@@ -0,0 +1,150 @@
+package academy.devdojo.user_service.cache;
+
+import academy.devdojo.user_service.config.UserCacheProperties;
+import academy.devdojo.user_service.domain.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of users by id. Missing ids are cached as {@link Optional#empty()} with a shorter TTL.
+ * Users are kept as immutable snapshots and every read gets a {@link User} of its own, so a caller changing the one it
+ * got, or a persistence context still managing the loaded entity, never changes what other callers read.
+ * Loads run outside the cache lock, and a load that races with an invalidation is not stored. Writers invalidate once
+ * their transaction commits, so a load that read the row before the commit cannot survive it.
+ */
+@Component
+public class UserCache implements MeterBinder {
+    private final Cache<Long, Optional<Snapshot>> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserCache(UserCacheProperties properties) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfter(new PresenceExpiry(properties.ttl().toNanos(), properties.negativeTtl().toNanos()))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<User> findById(Long id, Function<Long, Optional<User>> loader) {
+        var cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached.map(Snapshot::toUser);
+        }
+
+        var generationBeforeLoad = generation.get();
+        var loaded = loader.apply(id).map(Snapshot::of);
+        if (generation.get() == generationBeforeLoad) {
+            cache.put(id, loaded);
+        }
+        return loaded.map(Snapshot::toUser);
+    }
+
+    /**
+     * Set-based {@link #findById}: answers the cached ids from memory and hands only the others to {@code loader} in
+     * one call. Ids the loader does not return are cached as missing. The result follows the iteration order of
+     * {@code ids}.
+     */
+    public Map<Long, Optional<User>> findAllById(Collection<Long> ids, Function<Set<Long>, Map<Long, User>> loader) {
+        var cached = cache.getAllPresent(ids);
+        var missing = new LinkedHashSet<Long>();
+        for (var id : ids) {
+            if (!cached.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+
+        var loaded = new HashMap<Long, Optional<Snapshot>>();
+        if (!missing.isEmpty()) {
+            var generationBeforeLoad = generation.get();
+            var found = loader.apply(missing);
+            for (var id : missing) {
+                loaded.put(id, Optional.ofNullable(found.get(id)).map(Snapshot::of));
+            }
+            if (generation.get() == generationBeforeLoad) {
+                cache.putAll(loaded);
+            }
+        }
+
+        var users = new LinkedHashMap<Long, Optional<User>>();
+        for (var id : ids) {
+            users.put(id, (cached.containsKey(id) ? cached.get(id) : loaded.get(id)).map(Snapshot::toUser));
+        }
+        return users;
+    }
+
+    /**
+     * Answers from the cached user when there is one, otherwise asks {@code loader} for the version alone without
+     * caching it, so a conditional request never loads the whole entity.
+     */
+    public Optional<Long> findVersionById(Long id, Function<Long, Optional<Long>> loader) {
+        var cached = cache.getIfPresent(id);
+        return cached != null ? cached.map(Snapshot::version) : loader.apply(id);
+    }
+
+    /**
+     * Bumped by every invalidation. A load started under an older value may have read what was invalidated since.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void invalidate(Long id) {
+        generation.incrementAndGet();
+        if (id != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "users");
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private record Snapshot(Long id, String firstName, String lastName, String email, Long version) {
+
+        static Snapshot of(User user) {
+            return new Snapshot(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(), user.getVersion());
+        }
+
+        User toUser() {
+            return new User(id, firstName, lastName, email, version);
+        }
+    }
+
+    private record PresenceExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<Long, Optional<Snapshot>> {
+
+        @Override
+        public long expireAfterCreate(Long id, Optional<Snapshot> user, long currentTime) {
+            return user.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long id, Optional<Snapshot> user, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, user, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long id, Optional<Snapshot> user, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package academy.devdojo.user_service.cache;
+
+import academy.devdojo.user_service.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of the normalized emails, used to skip the database when an email is certainly free.
+ * A hit only means the email might be taken, so callers confirm it against the database; the unique
+ * constraint on {@code user.email} stays the final arbiter. Entries left behind by deletes and e-mail changes are
+ * therefore harmless, they only cost that confirming query.
+ * <p>
+ * Emails of users accepted by the write-behind but not inserted yet are reserved here, so a second signup, a PUT or a
+ * batch import with the same email is rejected before it reaches the database.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Profile("!reactive")
+public class UserEmailIndex {
+    private final UserRepository repository;
+    private final Set<String> emails = ConcurrentHashMap.newKeySet();
+    private final Set<String> reservedEmails = ConcurrentHashMap.newKeySet();
+    private volatile boolean warmedUp;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        try (var stored = repository.streamAllEmails()) {
+            stored.forEach(this::put);
+        }
+        warmedUp = true;
+        log.info("E-mail index warmed up with '{}' entries", emails.size());
+    }
+
+    public boolean mightContain(String email) {
+        return !warmedUp || emails.contains(normalize(email));
+    }
+
+    public void put(String email) {
+        emails.add(normalize(email));
+    }
+
+    /**
+     * @return false when the email is already reserved
+     */
+    public boolean reserve(String email) {
+        return reservedEmails.add(normalize(email));
+    }
+
+    public boolean isReserved(String email) {
+        return reservedEmails.contains(normalize(email));
+    }
+
+    public void release(String email) {
+        reservedEmails.remove(normalize(email));
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
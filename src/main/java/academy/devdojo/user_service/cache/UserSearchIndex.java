@@ -0,0 +1,132 @@
+package academy.devdojo.user_service.cache;
+
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.projection.UserSummary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index over the normalized (lowercase, accent free) first name, last name and e-mail tokens.
+ * Keys are {@code term + '\0' + field + '\0' + id}, so a prefix lookup is a bounded walk over a sorted sub map.
+ * The walk stops after {@code limit * SCAN_FACTOR} matching users, not entries, so the other terms of a query can be
+ * rare under a common first term; such a query may walk the whole first term. {@link UserSearchIndexFeed} fills it and
+ * keeps it up to date with the changes of every instance; {@link #index} and {@link #remove} are atomic per user.
+ */
+@Component
+@Profile("!reactive")
+public class UserSearchIndex {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("\\s+");
+    private static final char SEPARATOR = '\u0000';
+    private static final int SCAN_FACTOR = 20;
+    private final ConcurrentSkipListMap<String, Long> idsByKey = new ConcurrentSkipListMap<>();
+    private final Map<Long, List<String>> keysById = new ConcurrentHashMap<>();
+
+    public int size() {
+        return keysById.size();
+    }
+
+    public void index(User user) {
+        index(new UserSummary(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail()));
+    }
+
+    public void index(UserSummary user) {
+        var keys = new ArrayList<String>();
+        addKeys(keys, Field.FIRST_NAME, user.firstName(), user.id());
+        addKeys(keys, Field.LAST_NAME, user.lastName(), user.id());
+        addKeys(keys, Field.EMAIL, user.email(), user.id());
+
+        keysById.compute(user.id(), (id, previousKeys) -> {
+            if (previousKeys != null) {
+                previousKeys.stream().filter(key -> !keys.contains(key)).forEach(idsByKey::remove);
+            }
+            keys.forEach(key -> idsByKey.put(key, id));
+            return keys;
+        });
+    }
+
+    public void remove(Long id) {
+        keysById.computeIfPresent(id, (key, keys) -> {
+            keys.forEach(idsByKey::remove);
+            return null;
+        });
+    }
+
+    public List<Long> search(String query, int limit) {
+        var terms = SEPARATORS.split(normalize(query));
+        var prefix = terms[0];
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+
+        var candidates = new LinkedHashMap<Long, Rank>();
+        for (var entry : idsByKey.subMap(prefix, prefix + Character.MAX_VALUE).entrySet()) {
+            if (candidates.size() >= limit * SCAN_FACTOR) {
+                break;
+            }
+            if (!matchesRemainingTerms(entry.getValue(), terms)) {
+                continue;
+            }
+            var rank = Rank.of(entry.getKey(), prefix);
+            candidates.merge(entry.getValue(), rank, (current, candidate) -> current.compareTo(candidate) <= 0 ? current : candidate);
+        }
+
+        return candidates.entrySet().stream()
+                .sorted(Map.Entry.<Long, Rank>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private boolean matchesRemainingTerms(Long id, String[] terms) {
+        if (terms.length == 1) {
+            return true;
+        }
+        var keys = keysById.getOrDefault(id, List.of());
+        return Arrays.stream(terms, 1, terms.length)
+                .allMatch(term -> keys.stream().anyMatch(key -> key.startsWith(term)));
+    }
+
+    private static void addKeys(List<String> keys, Field field, String value, Long id) {
+        if (value == null) {
+            return;
+        }
+        for (var term : SEPARATORS.split(normalize(value))) {
+            if (!term.isEmpty()) {
+                keys.add(term + SEPARATOR + field.ordinal() + SEPARATOR + id);
+            }
+        }
+    }
+
+    static String normalize(String value) {
+        var decomposed = Normalizer.normalize(value.strip(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private enum Field {
+        FIRST_NAME, LAST_NAME, EMAIL
+    }
+
+    private record Rank(boolean exact, int field, int termLength) implements Comparable<Rank> {
+        private static final Comparator<Rank> ORDER = Comparator.comparing((Rank rank) -> !rank.exact())
+                .thenComparingInt(Rank::field)
+                .thenComparingInt(Rank::termLength);
+
+        static Rank of(String key, String prefix) {
+            var termEnd = key.indexOf(SEPARATOR);
+            var field = key.charAt(termEnd + 1) - '0';
+            return new Rank(termEnd == prefix.length(), field, termEnd);
+        }
+
+        @Override
+        public int compareTo(Rank other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
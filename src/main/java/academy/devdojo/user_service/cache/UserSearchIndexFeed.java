@@ -0,0 +1,89 @@
+package academy.devdojo.user_service.cache;
+
+import academy.devdojo.user_service.concurrency.UserBulkhead;
+import academy.devdojo.user_service.config.UserOutboxProperties;
+import academy.devdojo.user_service.domain.UserChange;
+import academy.devdojo.user_service.projection.UserSummary;
+import academy.devdojo.user_service.repository.UserChangeRepository;
+import academy.devdojo.user_service.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Fills the {@link UserSearchIndex} at startup and then applies the published changes of {@code user_change} every
+ * {@code user-service.outbox.poll-interval}, so writes made on other instances show up in this one's search. The
+ * offset to follow from is read in the same transaction as the users, so no change falls between the two. Local writes
+ * still update the index as soon as they commit; the feed may then briefly apply an older change of the same user
+ * before it reaches the new one.
+ */
+@Component
+@Lazy(false)
+@Profile("!reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class UserSearchIndexFeed implements SchedulingConfigurer {
+    private final UserSearchIndex searchIndex;
+    private final UserRepository repository;
+    private final UserChangeRepository changeRepository;
+    private final UserBulkhead bulkhead;
+    private final UserOutboxProperties properties;
+    private volatile Long offset;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        var warmedUpAt = changeRepository.findMaxChangeOffset().orElse(0L);
+        try (var users = repository.streamAllForSearch()) {
+            users.forEach(searchIndex::index);
+        }
+        offset = warmedUpAt;
+        log.info("Search index warmed up with '{}' users at offset '{}'", searchIndex.size(), warmedUpAt);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::follow, properties.pollInterval());
+    }
+
+    /**
+     * @return how many changes were applied to the index
+     */
+    public int follow() {
+        if (offset == null) {
+            return 0;
+        }
+
+        var applied = 0;
+        List<UserChange> changes;
+        do {
+            var after = offset;
+            changes = bulkhead.callInBackground(() ->
+                    changeRepository.findByChangeOffsetGreaterThanOrderByChangeOffset(after, Limit.of(properties.batchSize())));
+            changes.forEach(this::apply);
+            if (!changes.isEmpty()) {
+                offset = changes.getLast().getChangeOffset();
+                applied += changes.size();
+            }
+        } while (changes.size() == properties.batchSize());
+        return applied;
+    }
+
+    private void apply(UserChange change) {
+        if (change.getType() == UserChange.Type.DELETED) {
+            searchIndex.remove(change.getUserId());
+        } else {
+            searchIndex.index(new UserSummary(change.getUserId(), change.getFirstName(), change.getLastName(), change.getEmail()));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package academy.devdojo.user_service.concurrency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Merges concurrent calls for the same key into one: the first caller runs the loader and the callers arriving while
+ * it runs wait for its result instead of repeating the call. A follower waits at most {@code maxWait} and then runs
+ * the loader itself. A call started before {@code generation} last changed is not joined, so a read that may predate a
+ * write is never handed to someone who asked after it.
+ */
+public class SingleFlight<K, V> implements MeterBinder {
+    private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final String name;
+    private final Duration maxWait;
+    private final LongSupplier generation;
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public SingleFlight(String name, Duration maxWait, LongSupplier generation) {
+        this.name = name;
+        this.maxWait = maxWait;
+        this.generation = generation;
+    }
+
+    public V execute(K key, Function<? super K, ? extends V> loader) {
+        var flight = new Flight<V>(generation.getAsLong(), new CompletableFuture<>());
+        while (true) {
+            var inFlight = flights.putIfAbsent(key, flight);
+            if (inFlight == null) {
+                return lead(key, flight, loader);
+            }
+            if (inFlight.generation() >= flight.generation()) {
+                return follow(key, inFlight, loader);
+            }
+            if (flights.replace(key, inFlight, flight)) {
+                return lead(key, flight, loader);
+            }
+        }
+    }
+
+    private V lead(K key, Flight<V> flight, Function<? super K, ? extends V> loader) {
+        leaders.increment();
+        try {
+            V value = loader.apply(key);
+            flight.result().complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private V follow(K key, Flight<V> flight, Function<? super K, ? extends V> loader) {
+        try {
+            var value = flight.result().get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            followers.increment();
+            return value;
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return loader.apply(key);
+        } catch (ExecutionException e) {
+            followers.increment();
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a coalesced '%s' call".formatted(name));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCalls(registry, "leader", leaders);
+        bindCalls(registry, "follower", followers);
+        bindCalls(registry, "timeout", timeouts);
+        Gauge.builder("user.coalescing.in.flight", flights, ConcurrentMap::size)
+                .description("Distinct calls currently running")
+                .tag("flight", name)
+                .register(registry);
+    }
+
+    private void bindCalls(MeterRegistry registry, String role, LongAdder calls) {
+        FunctionCounter.builder("user.coalescing.calls", calls, LongAdder::sum)
+                .description("Calls that ran the loader (leader), shared a running call (follower) or gave up waiting for one (timeout)")
+                .tag("flight", name)
+                .tag("role", role)
+                .register(registry);
+    }
+
+    private record Flight<V>(long generation, CompletableFuture<V> result) {
+    }
+}
@@ -0,0 +1,113 @@
+package academy.devdojo.user_service.concurrency;
+
+import academy.devdojo.user_service.config.UserConcurrencyProperties;
+import academy.devdojo.user_service.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounds how many threads may hold a database connection at once, sized to the connection pool.
+ * Permits are taken around transactional service methods, where the transaction pins a connection, and around bare
+ * repository calls; a thread that already holds one does not take another. Callers that cannot get a permit within
+ * {@code user-service.concurrency.max-wait} fail fast with {@link ServiceBusyException} instead of queueing on the pool.
+ * Background work that opens its own transactions goes through {@link #callInBackground} instead.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class UserBulkhead {
+    private static final ThreadLocal<Boolean> HOLDING_PERMIT = new ThreadLocal<>();
+    private final Semaphore permits;
+    private final UserConcurrencyProperties properties;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public UserBulkhead(UserConcurrencyProperties properties, MeterRegistry registry) {
+        this.permits = new Semaphore(properties.permits(), true);
+        this.properties = properties;
+        this.waitTimer = Timer.builder("user.bulkhead.wait")
+                .description("Time spent waiting for a database permit")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rejectedCounter = Counter.builder("user.bulkhead.rejected")
+                .description("Calls rejected because no database permit was free within the wait budget")
+                .register(registry);
+        Gauge.builder("user.bulkhead.available", permits, Semaphore::availablePermits)
+                .description("Database permits currently free")
+                .register(registry);
+    }
+
+    @Around("execution(public * academy.devdojo.user_service.service..*(..)) && @annotation(org.springframework.transaction.annotation.Transactional)"
+            + " || execution(* academy.devdojo.user_service.repository.UserRepository+.*(..))"
+            + " || execution(* academy.devdojo.user_service.repository.UserChangeRepository+.*(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (HOLDING_PERMIT.get() != null) {
+            return joinPoint.proceed();
+        }
+
+        acquire();
+        HOLDING_PERMIT.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            HOLDING_PERMIT.remove();
+            permits.release();
+        }
+    }
+
+    /**
+     * Runs scheduled work, such as the outbox relay or the write-behind drain, under a permit taken before it opens any
+     * transaction, so a {@code TransactionTemplate} never holds a connection the bulkhead did not count. The work waits
+     * for the permit instead of failing fast: there is no client to answer with a 503, a late task just runs later.
+     */
+    public <T> T callInBackground(Supplier<T> work) {
+        if (HOLDING_PERMIT.get() != null) {
+            return work.get();
+        }
+
+        var start = System.nanoTime();
+        permits.acquireUninterruptibly();
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        HOLDING_PERMIT.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            HOLDING_PERMIT.remove();
+            permits.release();
+        }
+    }
+
+    public void runInBackground(Runnable work) {
+        callInBackground(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void acquire() throws InterruptedException {
+        if (permits.tryAcquire()) {
+            waitTimer.record(0, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        var start = System.nanoTime();
+        var acquired = permits.tryAcquire(properties.maxWait().toNanos(), TimeUnit.NANOSECONDS);
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException(properties.retryAfter());
+        }
+    }
+}
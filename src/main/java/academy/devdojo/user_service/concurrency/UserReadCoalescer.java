@@ -0,0 +1,44 @@
+package academy.devdojo.user_service.concurrency;
+
+import academy.devdojo.user_service.cache.UserCache;
+import academy.devdojo.user_service.config.UserConcurrencyProperties;
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.response.UserGetResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * {@link SingleFlight}s for the reads that spike on the same key: a user by id and the list filtered by name. Both
+ * follow the {@link UserCache} generation, which every write bumps, so a running read is not shared past a write.
+ */
+@Component
+@Profile("!reactive")
+public class UserReadCoalescer implements MeterBinder {
+    private final SingleFlight<Long, Optional<User>> usersById;
+    private final SingleFlight<Optional<String>, List<UserGetResponse>> usersByName;
+
+    public UserReadCoalescer(UserCache cache, UserConcurrencyProperties properties) {
+        this.usersById = new SingleFlight<>("users.by-id", properties.coalescingMaxWait(), cache::generation);
+        this.usersByName = new SingleFlight<>("users.by-name", properties.coalescingMaxWait(), cache::generation);
+    }
+
+    public Optional<User> findById(Long id, Function<Long, Optional<User>> loader) {
+        return usersById.execute(id, loader);
+    }
+
+    public List<UserGetResponse> findAll(String name, Function<String, List<UserGetResponse>> loader) {
+        return usersByName.execute(Optional.ofNullable(name), key -> loader.apply(key.orElse(null)));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        usersById.bindTo(registry);
+        usersByName.bindTo(registry);
+    }
+}
@@ -0,0 +1,61 @@
+package academy.devdojo.user_service.concurrency;
+
+import academy.devdojo.user_service.config.UserConcurrencyProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event, raised when a virtual thread blocks while pinned to its carrier
+ * (inside {@code synchronized} or a native frame) for longer than {@code user-service.concurrency.pinning-threshold}.
+ * Each event is logged with the top of its stack and counted in {@code jvm.threads.virtual.pinned}.
+ */
+@Component
+@ConditionalOnProperty(name = "user-service.concurrency.pinning-detection", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor implements DisposableBean {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int STACK_DEPTH = 8;
+    private final RecordingStream recording = new RecordingStream();
+    private final Counter pinnedCounter;
+
+    public VirtualThreadPinningMonitor(UserConcurrencyProperties properties, MeterRegistry registry) {
+        this.pinnedCounter = Counter.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier")
+                .register(registry);
+        recording.enable(PINNED_EVENT).withThreshold(properties.pinningThreshold()).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        recording.startAsync();
+    }
+
+    @Override
+    public void destroy() {
+        recording.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+        if (log.isWarnEnabled()) {
+            List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+            var stack = new StringBuilder();
+            frames.stream().limit(STACK_DEPTH).forEach(frame -> stack.append("\n\tat ")
+                    .append(frame.getMethod().getType().getName()).append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber()));
+            log.warn("Virtual thread pinned for '{}' ms{}", event.getDuration().toMillis(), stack);
+        }
+    }
+}
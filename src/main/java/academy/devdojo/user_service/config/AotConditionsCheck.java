@@ -0,0 +1,64 @@
+package academy.devdojo.user_service.config;
+
+import academy.devdojo.user_service.concurrency.VirtualThreadPinningMonitor;
+import academy.devdojo.user_service.outbox.UserChangeRelay;
+import academy.devdojo.user_service.writebehind.UserWriteBehind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * With {@code -Dspring.aot.enabled=true} every {@code @ConditionalOnProperty} was evaluated by {@code mvn -Pstartup}
+ * when the AOT code was generated, so at runtime the property no longer adds or removes its beans. Fails the startup
+ * when one of these properties disagrees with the beans the build kept, instead of running silently with the
+ * build-time choice. Build with {@code -Dspring-boot.aot.jvmArguments="-D<property>=<value>"} to change one.
+ */
+@Component
+@Lazy(false)
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class AotConditionsCheck implements SmartInitializingSingleton {
+    private final ListableBeanFactory beanFactory;
+    private final Environment environment;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+
+        var mismatches = new ArrayList<String>();
+        check(mismatches, "user-service.write-behind.enabled", false, UserWriteBehind.class);
+        check(mismatches, "user-service.outbox.relay-enabled", true, UserChangeRelay.class);
+        check(mismatches, "user-service.rate-limit.enabled", true, RateLimitConfiguration.class);
+        check(mismatches, "user-service.concurrency.pinning-detection", false, VirtualThreadPinningMonitor.class);
+        var replicas = environment.containsProperty("user-service.datasource.replicas[0].url");
+        if (replicas != hasBean(ReplicaDataSourceConfiguration.class)) {
+            mismatches.add("user-service.datasource.replicas " + (replicas ? "are set" : "are not set"));
+        }
+
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException("The AOT code was generated with other settings than these, rebuild it with them: "
+                    + String.join(", ", mismatches));
+        }
+    }
+
+    private void check(List<String> mismatches, String property, boolean matchIfMissing, Class<?> beanType) {
+        var enabled = environment.getProperty(property, Boolean.class, matchIfMissing);
+        if (enabled != hasBean(beanType)) {
+            mismatches.add(property + "=" + enabled);
+        }
+    }
+
+    private boolean hasBean(Class<?> beanType) {
+        return beanFactory.getBeanNamesForType(beanType, true, false).length > 0;
+    }
+}
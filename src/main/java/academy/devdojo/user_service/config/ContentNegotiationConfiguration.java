@@ -0,0 +1,21 @@
+package academy.devdojo.user_service.config;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+@Configuration
+public class ContentNegotiationConfiguration {
+
+    /**
+     * Serves {@code application/x-jackson-smile} to internal callers that ask for it. Built from Boot's builder so the
+     * {@code spring.jackson.*} settings match the JSON responses; Smile's shared property names send each repeated
+     * key, like {@code "second name"}, once per response.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,11 @@
+package academy.devdojo.user_service.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({UserCacheProperties.class, UserBatchProperties.class, UserLoggingProperties.class,
+        UserConcurrencyProperties.class, UserOutboxProperties.class, UserDataSourceProperties.class,
+        UserRateLimitProperties.class, UserWriteBehindProperties.class, UserExportProperties.class})
+public class PropertiesConfiguration {
+}
@@ -0,0 +1,30 @@
+package academy.devdojo.user_service.config;
+
+import academy.devdojo.user_service.ratelimit.UserRateLimitInterceptor;
+import academy.devdojo.user_service.ratelimit.UserRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Checks every servlet request to the user endpoints against {@link UserRateLimiter} before it reaches the controller,
+ * so a client over its limit costs no thread from the bulkhead nor a connection from the pool.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "user-service.rate-limit.enabled", matchIfMissing = true)
+public class RateLimitConfiguration implements WebMvcConfigurer {
+    private final UserRateLimitInterceptor interceptor;
+
+    public RateLimitConfiguration(UserRateLimitProperties properties, MeterRegistry registry) {
+        this.interceptor = new UserRateLimitInterceptor(new UserRateLimiter(properties, registry), properties);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor).addPathPatterns("/v1/users", "/v1/users/**");
+    }
+}
@@ -0,0 +1,65 @@
+package academy.devdojo.user_service.config;
+
+import academy.devdojo.user_service.datasource.ReadYourWritesWindow;
+import academy.devdojo.user_service.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.util.ArrayList;
+
+/**
+ * Replaces Boot's {@code DataSource} when {@code user-service.datasource.replicas} is set. Connections are fetched
+ * lazily, once the transaction has marked them read-only or not: read-only transactions, which include the reads of
+ * Spring Data repositories called outside a transaction, go to the replicas, everything else to the primary.
+ * The replica pools copy the primary's {@code spring.datasource.hikari} settings.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "user-service.datasource", name = "replicas[0].url")
+public class ReplicaDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource, UserDataSourceProperties properties,
+                                                      ReadYourWritesWindow window, ObjectProvider<MeterRegistry> registry) {
+        var replicas = new ArrayList<HikariDataSource>();
+        for (int i = 0; i < properties.replicas().size(); i++) {
+            var replica = properties.replicas().get(i);
+            var pool = new HikariDataSource();
+            primaryDataSource.copyStateTo(pool);
+            pool.setPoolName("user-replica-%d".formatted(i));
+            pool.setJdbcUrl(replica.url());
+            if (replica.username() != null) {
+                pool.setUsername(replica.username());
+                pool.setPassword(replica.password());
+            }
+            pool.setReadOnly(true);
+            registry.ifAvailable(meterRegistry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry)));
+            replicas.add(pool);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, window, properties.healthCheckInterval());
+    }
+
+    @Bean
+    @Primary
+    public LazyConnectionDataSourceProxy dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        var dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
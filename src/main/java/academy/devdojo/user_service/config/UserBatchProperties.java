@@ -0,0 +1,13 @@
+package academy.devdojo.user_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties("user-service.batch")
+public record UserBatchProperties(@DefaultValue("500") int chunkSize,
+                                  @DefaultValue("10000") int maxItems,
+                                  @DefaultValue("1000000") int maxStreamedItems,
+                                  @DefaultValue("500") int lookupChunkSize,
+                                  @DefaultValue("1000") int lookupMaxIds,
+                                  @DefaultValue("10000") int maxListedUsers) {
+}
@@ -0,0 +1,12 @@
+package academy.devdojo.user_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties("user-service.cache")
+public record UserCacheProperties(@DefaultValue("10000") long maximumSize,
+                                  @DefaultValue("10m") Duration ttl,
+                                  @DefaultValue("30s") Duration negativeTtl) {
+}
@@ -0,0 +1,15 @@
+package academy.devdojo.user_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties("user-service.concurrency")
+public record UserConcurrencyProperties(@DefaultValue("10") int permits,
+                                        @DefaultValue("100ms") Duration maxWait,
+                                        @DefaultValue("1s") Duration retryAfter,
+                                        @DefaultValue("false") boolean pinningDetection,
+                                        @DefaultValue("20ms") Duration pinningThreshold,
+                                        @DefaultValue("1s") Duration coalescingMaxWait) {
+}
@@ -0,0 +1,19 @@
+package academy.devdojo.user_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties("user-service.datasource")
+public record UserDataSourceProperties(@DefaultValue List<Replica> replicas,
+                                       @DefaultValue("2s") Duration readYourWritesWindow,
+                                       @DefaultValue("5s") Duration healthCheckInterval) {
+
+    /**
+     * A read replica of {@code spring.datasource}. Without a username or password it uses the primary's.
+     */
+    public record Replica(String url, String username, String password) {
+    }
+}
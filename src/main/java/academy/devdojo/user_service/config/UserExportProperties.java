@@ -0,0 +1,25 @@
+package academy.devdojo.user_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Bulk export of {@code GET v1/users/export} and {@code POST v1/users/exports}. {@code fetch-size} is how many rows the
+ * cursor brings per round trip; {@code directory} is where file exports are written, and their status is answered for
+ * {@code status-retention} once they end. At most {@code concurrent-exports} file exports run at a time and
+ * {@code queued-exports} wait for them; past that a new one is refused with {@code Retry-After: retry-after}.
+ */
+@ConfigurationProperties("user-service.export")
+public record UserExportProperties(@DefaultValue("1000") int fetchSize,
+                                   @DefaultValue("64KB") DataSize bufferSize,
+                                   @DefaultValue("exports") Path directory,
+                                   @DefaultValue("1h") Duration statusRetention,
+                                   @DefaultValue("1000") int maximumStatuses,
+                                   @DefaultValue("1") int concurrentExports,
+                                   @DefaultValue("4") int queuedExports,
+                                   @DefaultValue("30s") Duration retryAfter) {
+}
@@ -0,0 +1,12 @@
+package academy.devdojo.user_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties("user-service.logging")
+public record UserLoggingProperties(@DefaultValue("0.1") double accessSampleRate,
+                                    @DefaultValue("500ms") Duration slowRequestThreshold,
+                                    @DefaultValue("false") boolean sqlDebugHeaderEnabled) {
+}
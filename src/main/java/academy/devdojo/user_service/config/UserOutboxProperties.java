@@ -0,0 +1,21 @@
+package academy.devdojo.user_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Outbox of user changes. Published changes are kept for {@code retention}; instances without the relay look for new
+ * offsets every {@code poll-interval} while {@code v1/users/changes} callers wait.
+ */
+@ConfigurationProperties("user-service.outbox")
+public record UserOutboxProperties(@DefaultValue("true") boolean relayEnabled,
+                                   @DefaultValue("200ms") Duration relayInterval,
+                                   @DefaultValue("500") int batchSize,
+                                   @DefaultValue("30s") Duration maxWait,
+                                   @DefaultValue("30m") Duration streamTimeout,
+                                   @DefaultValue("500ms") Duration pollInterval,
+                                   @DefaultValue("7d") Duration retention,
+                                   @DefaultValue("1h") Duration retentionInterval) {
+}
@@ -0,0 +1,28 @@
+package academy.devdojo.user_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-client limits of the user endpoints. {@code routes} is keyed by {@code UserController} method name; routes that
+ * are not listed get {@code default-limit}. Only the keys in {@code api-keys} identify a client by
+ * {@code api-key-header}; any other key counts against the client's address.
+ */
+@ConfigurationProperties("user-service.rate-limit")
+public record UserRateLimitProperties(@DefaultValue("true") boolean enabled,
+                                      @DefaultValue("X-API-Key") String apiKeyHeader,
+                                      @DefaultValue Set<String> apiKeys,
+                                      @DefaultValue("100000") int maximumBuckets,
+                                      @DefaultValue Limit defaultLimit,
+                                      @DefaultValue Map<String, Limit> routes) {
+
+    /**
+     * Sustained rate, and how many requests a client that was idle may send at once.
+     */
+    public record Limit(@DefaultValue("50") double permitsPerSecond,
+                        @DefaultValue("100") int burst) {
+    }
+}
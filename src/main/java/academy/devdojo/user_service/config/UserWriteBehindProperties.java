@@ -0,0 +1,24 @@
+package academy.devdojo.user_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Write-behind of {@code POST v1/users} sent with {@code Prefer: respond-async}. {@code segment-size} is the size of
+ * each memory-mapped log file and must hold at least one user; {@code sync-on-append: false} skips the flush to disk
+ * before the 202, trading the writes of the last moments before a machine crash for latency.
+ */
+@ConfigurationProperties("user-service.write-behind")
+public record UserWriteBehindProperties(@DefaultValue("false") boolean enabled,
+                                        @DefaultValue("write-behind") Path directory,
+                                        @DefaultValue("64MB") DataSize segmentSize,
+                                        @DefaultValue("true") boolean syncOnAppend,
+                                        @DefaultValue("100ms") Duration drainInterval,
+                                        @DefaultValue("500") int batchSize,
+                                        @DefaultValue("1h") Duration statusRetention,
+                                        @DefaultValue("1000000") int maximumStatuses) {
+}
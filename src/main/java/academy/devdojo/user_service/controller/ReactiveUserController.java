@@ -0,0 +1,97 @@
+package academy.devdojo.user_service.controller;
+
+import academy.devdojo.user_service.mapper.UserMapper;
+import academy.devdojo.user_service.request.UserPostRequest;
+import academy.devdojo.user_service.request.UserPutRequest;
+import academy.devdojo.user_service.response.UserGetResponse;
+import academy.devdojo.user_service.response.UserPageGetResponse;
+import academy.devdojo.user_service.response.UserPostResponse;
+import academy.devdojo.user_service.service.ReactiveUserService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux mirror of {@link UserController} for the {@code reactive} profile. Lists are written element by element
+ * as the R2DBC cursor emits them, so a slow client slows the database reads down instead of filling the heap.
+ * Search and batch imports rely on the servlet deployment's in-memory indexes and JDBC batching and are not exposed here.
+ * {@code GET /{id}} sends the same strong ETag and {@code PUT} honors the same {@code If-Match} as the servlet controller.
+ */
+@RestController
+@RequestMapping("v1/users")
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveUserController {
+    private static final int MAX_PAGE_SIZE = 500;
+    private final ReactiveUserService service;
+    private final UserMapper mapper;
+
+    @GetMapping
+    public Flux<UserGetResponse> findAll(@RequestParam(required = false) String name) {
+        log.debug("Request received to list all users, param: '{}'", name);
+
+        return service.findAll(name).map(mapper::toUserGetResponse);
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<UserPageGetResponse> findAllAfter(@RequestParam(required = false) String name,
+                                                  @RequestParam(defaultValue = "0") Long after,
+                                                  @RequestParam @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+        log.debug("Request received to list users after id '{}', limit: '{}', param: '{}'", after, limit, name);
+
+        return service.findAllAfter(name, after, limit).collectList().map(users -> {
+            var next = users.size() == limit ? users.getLast().id() : null;
+            return new UserPageGetResponse(mapper.toUserGetResponseListFromSummaries(users), next);
+        });
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserGetResponse> streamAll(@RequestParam(required = false) String name) {
+        log.debug("Request received to stream all users, param: '{}'", name);
+
+        return service.findAll(name).map(mapper::toUserGetResponse);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<UserGetResponse>> findById(@PathVariable Long id) {
+        log.debug("Request received to find an user by id: '{}'", id);
+
+        return service.findVersionedByIdOrThrowNotFound(id)
+                .map(user -> ResponseEntity.ok().eTag(String.valueOf(user.getT2())).body(mapper.toUserGetResponse(user.getT1())));
+    }
+
+    @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<UserPostResponse> save(@RequestBody @Valid UserPostRequest request) {
+        log.debug("Request received to save an user");
+
+        return service.save(mapper.toUser(request)).map(mapper::toUserPostResponse);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteById(@PathVariable Long id) {
+        log.debug("Request received to delete user by id: '{}'", id);
+
+        return service.delete(id).then(Mono.just(ResponseEntity.noContent().build()));
+    }
+
+    @PutMapping
+    public Mono<ResponseEntity<Void>> update(@RequestBody @Valid UserPutRequest request,
+                                             @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.debug("Request received to update user by id: '{}'", request.getId());
+
+        var userToUpdate = mapper.toUser(request).withVersion(UserController.expectedVersion(ifMatch));
+        return service.update(userToUpdate).then(Mono.just(ResponseEntity.noContent().build()));
+    }
+}
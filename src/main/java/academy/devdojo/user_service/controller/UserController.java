@@ -1,62 +1,312 @@
 package academy.devdojo.user_service.controller;
 
+import academy.devdojo.exception.NotFoundException;
 import academy.devdojo.user_service.mapper.UserMapper;
 import academy.devdojo.user_service.request.UserPostRequest;
 import academy.devdojo.user_service.request.UserPutRequest;
+import academy.devdojo.user_service.config.UserBatchProperties;
+import academy.devdojo.user_service.config.UserOutboxProperties;
+import academy.devdojo.user_service.exception.PreconditionFailedException;
+import academy.devdojo.user_service.response.UserBatchPostResponse;
+import academy.devdojo.user_service.response.UserChangePageGetResponse;
+import academy.devdojo.user_service.response.UserExportGetResponse;
 import academy.devdojo.user_service.response.UserGetResponse;
+import academy.devdojo.user_service.response.UserLookupGetResponse;
+import academy.devdojo.user_service.response.UserPageGetResponse;
 import academy.devdojo.user_service.response.UserPostResponse;
+import academy.devdojo.user_service.response.UserWriteGetResponse;
+import academy.devdojo.user_service.service.UserChangeService;
+import academy.devdojo.user_service.service.UserExportJobs;
+import academy.devdojo.user_service.service.UserExportService;
+import academy.devdojo.user_service.service.UserImportService;
 import academy.devdojo.user_service.service.UserService;
+import academy.devdojo.user_service.writebehind.UserWriteBehind;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 @RequestMapping("v1/users")
 @RequiredArgsConstructor
 @Slf4j
+@Profile("!reactive")
 public class UserController {
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_SEARCH_SIZE = 50;
+    private static final int MAX_CHANGES_SIZE = 1000;
     private final UserService service;
+    private final UserChangeService changeService;
+    private final UserImportService importService;
+    private final UserExportService exportService;
+    private final UserExportJobs exportJobs;
     private final UserMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final UserBatchProperties batchProperties;
+    private final UserOutboxProperties outboxProperties;
+    private final ObjectProvider<UserWriteBehind> writeBehind;
 
     @GetMapping
-    public ResponseEntity<List<UserGetResponse>> findAll(@RequestParam(required = false) String name) {
-        log.info("Request received to list all users, param: '{}'", name);
-        var users = service.findAll(name);
+    public ResponseEntity<List<UserGetResponse>> findAll(@RequestParam(required = false) String name, WebRequest request) {
+        log.debug("Request received to list all users, param: '{}'", name);
+        var etag = "W/\"%s\"".formatted(service.findWatermark().etag());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        var userGetResponse = service.findAll(name);
+        if (userGetResponse.size() > batchProperties.maxListedUsers()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "More than %d users to list, page with ?limit= or use application/x-ndjson".formatted(batchProperties.maxListedUsers()));
+        }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(userGetResponse);
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<UserPageGetResponse> findAllAfter(@RequestParam(required = false) String name,
+                                                            @RequestParam(defaultValue = "0") Long after,
+                                                            @RequestParam @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+        log.debug("Request received to list users after id '{}', limit: '{}', param: '{}'", after, limit, name);
+        var users = service.findAllAfter(name, after, limit);
+
+        var next = users.size() == limit ? users.getLast().id() : null;
+        var userPageGetResponse = new UserPageGetResponse(mapper.toUserGetResponseListFromSummaries(users), next);
+        return ResponseEntity.ok(userPageGetResponse);
+    }
+
+    @GetMapping(params = {"ids", "!limit"})
+    public ResponseEntity<UserLookupGetResponse> findAllById(@RequestParam List<Long> ids) {
+        log.debug("Request received to find '{}' users by id", ids.size());
+
+        return ResponseEntity.ok(toLookupResponse(ids));
+    }
+
+    @PostMapping(path = "/lookup", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserLookupGetResponse> lookup(@RequestBody List<Long> ids) {
+        log.debug("Request received to look up '{}' users by id", ids.size());
+
+        return ResponseEntity.ok(toLookupResponse(ids));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll(@RequestParam(required = false) String name) {
+        log.debug("Request received to stream all users, param: '{}'", name);
+
+        StreamingResponseBody body = outputStream -> {
+            try (var writer = objectMapper.writerFor(UserGetResponse.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                service.streamAll(name, user -> {
+                    try {
+                        writer.write(user);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Streams every user, with id, as an attachment for analytics; unlike {@link #streamAll} it reads through a plain
+     * JDBC cursor and can write CSV and gzip.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) String name,
+                                                        @RequestParam(defaultValue = "NDJSON") UserExportService.Format format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip) {
+        log.debug("Request received to export users as '{}', param: '{}'", format, name);
+
+        StreamingResponseBody body = outputStream -> exportService.export(name, format, gzip, Channels.newChannel(outputStream));
+        var contentDisposition = ContentDisposition.attachment().filename("users" + format.fileExtension(gzip)).build();
+        return ResponseEntity.ok()
+                .contentType(format.mediaType(gzip))
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .body(body);
+    }
+
+    /**
+     * Starts an export to a file in the background and answers 202 with its status URL in {@code Location}.
+     */
+    @PostMapping(path = "/exports", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserExportGetResponse> exportToFile(@RequestParam(required = false) String name,
+                                                              @RequestParam(defaultValue = "NDJSON") UserExportService.Format format,
+                                                              @RequestParam(defaultValue = "false") boolean gzip) {
+        log.debug("Request received to export users as '{}' to a file, param: '{}'", format, name);
+
+        var export = exportJobs.submit(name, format, gzip);
+
+        var location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{exportId}").buildAndExpand(export.getExportId()).toUri();
+        return ResponseEntity.accepted().location(location).body(export);
+    }
+
+    @GetMapping(path = "/exports/{exportId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserExportGetResponse> findExportById(@PathVariable UUID exportId) {
+        log.debug("Request received to find the export '{}'", exportId);
+
+        var export = exportJobs.findById(exportId).orElseThrow(() -> new NotFoundException("Export not Found"));
+
+        return ResponseEntity.ok(export);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<UserGetResponse>> search(@RequestParam @NotBlank String q,
+                                                        @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_SEARCH_SIZE) int limit) {
+        log.debug("Request received to search users by '{}', limit: '{}'", q, limit);
+        var users = service.search(q, limit);
 
         var userGetResponse = mapper.toUserGetResponseList(users);
         return ResponseEntity.ok(userGetResponse);
     }
 
-    @GetMapping("/{id}")
-    public ResponseEntity<UserGetResponse> findById(@PathVariable Long id) {
-        log.info("Request received to find an user by id: '{}'", id);
+    @GetMapping("/changes")
+    public ResponseEntity<UserChangePageGetResponse> findChanges(@RequestParam(defaultValue = "0") @Min(0) long since,
+                                                                 @RequestParam(defaultValue = "100") @Min(1) @Max(MAX_CHANGES_SIZE) int limit,
+                                                                 @RequestParam(defaultValue = "0") @Min(0) long wait) {
+        log.debug("Request received to list user changes since '{}', limit: '{}', wait: '{}s'", since, limit, wait);
+        var changes = changeService.awaitAfter(since, limit, min(Duration.ofSeconds(wait), outboxProperties.maxWait()));
+
+        var next = changes.isEmpty() ? since : changes.getLast().getChangeOffset();
+        var userChangePageGetResponse = new UserChangePageGetResponse(mapper.toUserChangeGetResponseList(changes), next);
+        return ResponseEntity.ok(userChangePageGetResponse);
+    }
+
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(defaultValue = "0") @Min(0) long since,
+                                    @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        log.debug("Request received to stream user changes since '{}', Last-Event-ID: '{}'", since, lastEventId);
+
+        var emitter = new SseEmitter(outboxProperties.streamTimeout().toMillis());
+        var open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(e -> open.set(false));
+
+        var offset = lastEventId == null ? since : lastEventId;
+        Thread.ofVirtual().name("user-changes-stream").start(() -> sendChanges(emitter, offset, open));
+        return emitter;
+    }
+
+    /**
+     * JSON only: the strong ETag is the version, which {@code If-Match} takes back, so it must label one representation.
+     */
+    @GetMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserGetResponse> findById(@PathVariable Long id, WebRequest request) {
+        log.debug("Request received to find an user by id: '{}'", id);
+
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(String.valueOf(service.findVersionByIdOrThrowNotFound(id)))) {
+            return null;
+        }
 
         var user = service.findByIdOrThrowNotFound(id);
         var userGetResponse = mapper.toUserGetResponse(user);
 
-        return ResponseEntity.ok(userGetResponse);
+        return ResponseEntity.ok().eTag(String.valueOf(user.getVersion())).body(userGetResponse);
     }
 
+    /**
+     * With {@code Prefer: respond-async} among the preferences and {@code user-service.write-behind.enabled}, answers
+     * 202 once the user is in the write-behind log, with a tracking id and its status URL in {@code Location}.
+     * Otherwise the preference is ignored and the user is saved before answering 201.
+     */
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<UserPostResponse> save(@RequestBody @Valid UserPostRequest request) {
-        log.info("Request received to save user: '{}'", request);
+    public ResponseEntity<?> save(@RequestBody @Valid UserPostRequest request,
+                                  @RequestHeader(name = "Prefer", required = false) List<String> preferences) {
+        var writeBehind = prefersRespondAsync(preferences) ? this.writeBehind.getIfAvailable() : null;
+        if (writeBehind == null) {
+            log.debug("Request received to save an user");
+
+            var userToSave = mapper.toUser(request);
+            service.save(userToSave);
 
-        var userToSave = mapper.toUser(request);
-        service.save(userToSave);
+            var userPostResponse = mapper.toUserPostResponse(userToSave);
+            return ResponseEntity.status(HttpStatus.CREATED).eTag(String.valueOf(userToSave.getVersion())).body(userPostResponse);
+        }
+        log.debug("Request received to save an user asynchronously");
 
-        var userPostResponse = mapper.toUserPostResponse(userToSave);
-        return ResponseEntity.status(HttpStatus.CREATED).body(userPostResponse);
+        var write = writeBehind.submit(mapper.toUser(request));
+
+        var location = ServletUriComponentsBuilder.fromCurrentRequest().path("/writes/{trackingId}").buildAndExpand(write.getTrackingId()).toUri();
+        return ResponseEntity.accepted().location(location).header("Preference-Applied", "respond-async").body(write);
+    }
+
+    @GetMapping(path = "/writes/{trackingId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserWriteGetResponse> findWriteByTrackingId(@PathVariable UUID trackingId) {
+        log.debug("Request received to find the write '{}'", trackingId);
+
+        var write = writeBehind.stream()
+                .flatMap(writeBehind -> writeBehind.findByTrackingId(trackingId).stream())
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Write not Found"));
+
+        return ResponseEntity.ok(write);
+    }
+
+    @PostMapping(path = "/batch", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserBatchPostResponse> saveAll(@RequestBody List<UserPostRequest> requests) {
+        log.debug("Request received to save '{}' users in batch", requests.size());
+
+        if (requests.size() > batchProperties.maxItems()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "A batch accepts at most %d users, use application/x-ndjson for larger imports".formatted(batchProperties.maxItems()));
+        }
+
+        var userBatchPostResponse = importService.importAll(requests.iterator());
+        return ResponseEntity.ok(userBatchPostResponse);
+    }
+
+    @PostMapping(path = "/batch", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<UserBatchPostResponse> saveAllStreamed(InputStream body) throws IOException {
+        log.debug("Request received to save users in batch from an NDJSON stream");
+
+        try (var requests = objectMapper.readerFor(UserPostRequest.class).<UserPostRequest>readValues(body)) {
+            var limited = new LimitedIterator<>(requests, batchProperties.maxStreamedItems());
+            var userBatchPostResponse = importService.importAll(limited);
+            if (limited.isTruncated()) {
+                log.warn("NDJSON batch stopped at '{}' users", batchProperties.maxStreamedItems());
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(userBatchPostResponse);
+            }
+            return ResponseEntity.ok(userBatchPostResponse);
+        }
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteById(@PathVariable Long id) {
-        log.info("Request received to delete user by id: '{}'", id);
+        log.debug("Request received to delete user by id: '{}'", id);
 
         service.delete(id);
 
@@ -64,13 +314,118 @@ public class UserController {
     }
 
     @PutMapping
-    public ResponseEntity<Void> update(@RequestBody @Valid UserPutRequest request) {
-        log.info("Request received to update user: '{}'", request);
+    public ResponseEntity<Void> update(@RequestBody @Valid UserPutRequest request,
+                                       @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.debug("Request received to update user by id: '{}'", request.getId());
 
-        var userToUpdate = mapper.toUser(request);
+        var userToUpdate = mapper.toUser(request).withVersion(expectedVersion(ifMatch));
 
         service.update(userToUpdate);
 
         return ResponseEntity.noContent().build();
     }
+
+    private UserLookupGetResponse toLookupResponse(List<Long> ids) {
+        var distinctIds = new LinkedHashSet<Long>(ids);
+        distinctIds.remove(null);
+        if (distinctIds.size() > batchProperties.lookupMaxIds()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "A lookup accepts at most %d ids".formatted(batchProperties.lookupMaxIds()));
+        }
+
+        var users = service.findAllById(distinctIds);
+        var missing = distinctIds.stream().filter(id -> !users.containsKey(id)).toList();
+        return new UserLookupGetResponse(mapper.toUserPostResponseList(List.copyOf(users.values())), missing);
+    }
+
+    private void sendChanges(SseEmitter emitter, long offset, AtomicBoolean open) {
+        try {
+            while (open.get()) {
+                var changes = changeService.awaitAfter(offset, MAX_CHANGES_SIZE, outboxProperties.maxWait());
+                if (changes.isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                    continue;
+                }
+                for (var change : changes) {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(change.getChangeOffset()))
+                            .name(change.getType().name())
+                            .data(mapper.toUserChangeGetResponse(change), MediaType.APPLICATION_JSON));
+                }
+                offset = changes.getLast().getChangeOffset();
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("User changes stream closed after offset '{}': {}", offset, e.getMessage());
+        } catch (RuntimeException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    /**
+     * {@code Prefer} is a comma separated list of preferences, each a token with optional parameters after
+     * {@code ;}, and may come in several header lines; tokens are case-insensitive (RFC 7240).
+     */
+    static boolean prefersRespondAsync(List<String> preferences) {
+        return preferences != null && preferences.stream()
+                .flatMap(header -> Arrays.stream(header.split(",")))
+                .map(preference -> preference.split(";", 2)[0].strip())
+                .anyMatch("respond-async"::equalsIgnoreCase);
+    }
+
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+
+        var etags = ETag.parse(ifMatch);
+        if (etags.size() == 1 && etags.getFirst().isWildcard()) {
+            return null;
+        }
+        if (etags.size() != 1 || etags.getFirst().weak() || !etags.getFirst().tag().matches("\\d{1,18}")) {
+            throw new PreconditionFailedException("If-Match must be a single strong ETag returned by GET v1/users/{id}");
+        }
+        return Long.valueOf(etags.getFirst().tag());
+    }
+
+    /**
+     * Ends an NDJSON import after {@code max} lines, so its per-item report stays bounded. The lines before the limit
+     * are imported and reported as usual, with a 413 telling the client that the rest of the stream was not read.
+     */
+    private static final class LimitedIterator<T> implements Iterator<T> {
+        private final Iterator<T> iterator;
+        private final int max;
+        private int read;
+        private boolean truncated;
+
+        private LimitedIterator(Iterator<T> iterator, int max) {
+            this.iterator = iterator;
+            this.max = max;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            truncated = read == max;
+            return !truncated;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            read++;
+            return iterator.next();
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+    }
 }
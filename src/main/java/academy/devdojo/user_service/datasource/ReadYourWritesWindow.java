@@ -0,0 +1,42 @@
+package academy.devdojo.user_service.datasource;
+
+import academy.devdojo.user_service.config.UserDataSourceProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps reads on the primary for {@code user-service.datasource.read-your-writes-window} after this instance writes
+ * users, so neither the client that wrote nor the cache entries loaded right after it read a replica that has not
+ * caught up yet. The window is per instance, not per client. Inside a transaction it opens again on completion, so it
+ * is measured from the commit.
+ */
+@Component
+public class ReadYourWritesWindow {
+    private final long windowNanos;
+    private volatile long openUntilNanos = System.nanoTime();
+
+    public ReadYourWritesWindow(UserDataSourceProperties properties) {
+        this.windowNanos = properties.readYourWritesWindow().toNanos();
+    }
+
+    public void markWrite() {
+        open();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    open();
+                }
+            });
+        }
+    }
+
+    public boolean isOpen() {
+        return System.nanoTime() - openUntilNanos < 0;
+    }
+
+    private void open() {
+        openUntilNanos = System.nanoTime() + windowNanos;
+    }
+}
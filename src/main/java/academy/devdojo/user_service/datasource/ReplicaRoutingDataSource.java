@@ -0,0 +1,127 @@
+package academy.devdojo.user_service.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read-only side of the primary's {@code LazyConnectionDataSourceProxy}: hands out connections of the replica
+ * pools in round-robin order, skipping the ones marked down. A replica is marked down when it cannot connect to its
+ * database, and up again by the first health check, every {@code health-check-interval}, that gets a connection. A
+ * pool with every connection in use only sends that read to the next replica. With every replica down or busy, or
+ * while the {@link ReadYourWritesWindow} is open, connections come from the primary.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements SchedulingConfigurer, MeterBinder, AutoCloseable {
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesWindow window;
+    private final Duration healthCheckInterval;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, ReadYourWritesWindow window,
+                                    Duration healthCheckInterval) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.window = window;
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!window.isOpen()) {
+            var start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                var replica = replicas.get((start + i) % replicas.size());
+                if (replica.up) {
+                    try {
+                        return replica.dataSource.getConnection();
+                    } catch (SQLException | RuntimeException e) {
+                        replica.markDownUnlessBusy(e);
+                    }
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica credentials come from user-service.datasource.replicas");
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::checkHealth, healthCheckInterval);
+    }
+
+    public void checkHealth() {
+        for (var replica : replicas) {
+            try (var ignored = replica.dataSource.getConnection()) {
+                replica.markUp();
+            } catch (SQLException | RuntimeException e) {
+                replica.markDownUnlessBusy(e);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (var replica : replicas) {
+            Gauge.builder("user.datasource.replica.up", replica, r -> r.up ? 1 : 0)
+                    .description("Whether reads are routed to the replica, 1 when it is up")
+                    .tag("replica", replica.dataSource.getPoolName())
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private static final class Replica {
+        private final HikariDataSource dataSource;
+        private volatile boolean up = true;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private void markUp() {
+            if (!up) {
+                log.info("Replica '{}' is up, routing reads to it again", dataSource.getPoolName());
+                up = true;
+            }
+        }
+
+        /**
+         * Hikari times out with a {@link SQLTransientConnectionException} both when every connection is in use and
+         * when it cannot connect; only in the latter case does it carry the last connection failure as the cause.
+         */
+        private void markDownUnlessBusy(Exception e) {
+            if (e instanceof SQLTransientConnectionException && e.getCause() == null) {
+                log.debug("Replica '{}' has no free connection, reading elsewhere: {}", dataSource.getPoolName(), e.getMessage());
+                return;
+            }
+            if (up) {
+                log.warn("Replica '{}' is down, routing its reads elsewhere: {}", dataSource.getPoolName(), e.getMessage());
+                up = false;
+            }
+        }
+    }
+}
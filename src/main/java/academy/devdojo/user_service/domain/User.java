@@ -2,6 +2,8 @@ package academy.devdojo.user_service.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @With
 @Getter
@@ -9,9 +11,12 @@ import lombok.*;
 @Builder
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
+    public static final String CACHE_REGION = "user";
     @EqualsAndHashCode.Include
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,4 +27,7 @@ public class User {
     private String lastName;
     @Column(nullable = false, unique = true)
     private String email;
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
@@ -0,0 +1,54 @@
+package academy.devdojo.user_service.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Outbox row written in the same transaction as the user mutation it describes. {@code changeOffset} stays
+ * {@code null} until the relay publishes the change, and then orders the changes consumers read.
+ */
+@With
+@Getter
+@Setter
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChange {
+    @EqualsAndHashCode.Include
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(unique = true)
+    private Long changeOffset;
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 16)
+    private Type type;
+    @Column(nullable = false)
+    private Long userId;
+    private String firstName;
+    private String lastName;
+    private String email;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static UserChange of(Type type, User user) {
+        return UserChange.builder()
+                .type(type)
+                .userId(user.getId())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .email(user.getEmail())
+                .build();
+    }
+
+    public static UserChange deleted(Long userId) {
+        return UserChange.builder().type(Type.DELETED).userId(userId).build();
+    }
+}
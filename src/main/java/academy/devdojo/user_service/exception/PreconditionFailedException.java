@@ -0,0 +1,11 @@
+package academy.devdojo.user_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class PreconditionFailedException extends ResponseStatusException {
+
+    public PreconditionFailedException(String reason) {
+        super(HttpStatus.PRECONDITION_FAILED, reason);
+    }
+}
@@ -0,0 +1,26 @@
+package academy.devdojo.user_service.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * A rejection the client may retry, answered with {@code Retry-After} in whole seconds, rounded up and at least one.
+ */
+public abstract class RetryAfterException extends ResponseStatusException {
+    private final long retryAfterSeconds;
+
+    protected RetryAfterException(HttpStatusCode status, String reason, Duration retryAfter) {
+        super(status, reason);
+        this.retryAfterSeconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return headers;
+    }
+}
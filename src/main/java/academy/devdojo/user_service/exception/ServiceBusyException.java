@@ -0,0 +1,16 @@
+package academy.devdojo.user_service.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+public class ServiceBusyException extends RetryAfterException {
+
+    public ServiceBusyException(Duration retryAfter) {
+        this("Too many concurrent requests, retry later", retryAfter);
+    }
+
+    public ServiceBusyException(String reason, Duration retryAfter) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason, retryAfter);
+    }
+}
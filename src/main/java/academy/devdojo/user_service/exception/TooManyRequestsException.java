@@ -0,0 +1,12 @@
+package academy.devdojo.user_service.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+public class TooManyRequestsException extends RetryAfterException {
+
+    public TooManyRequestsException(Duration retryAfter) {
+        super(HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded, retry later", retryAfter);
+    }
+}
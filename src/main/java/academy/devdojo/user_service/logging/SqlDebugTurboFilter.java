@@ -0,0 +1,30 @@
+package academy.devdojo.user_service.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Opens the Hibernate SQL and bind parameter loggers for the requests tagged by {@link UserAccessLogFilter}.
+ * Everything else is left to the configured levels, so untagged requests pay a single MDC lookup per check.
+ */
+public class SqlDebugTurboFilter extends TurboFilter {
+    public static final String MDC_KEY = "sqlDebug";
+    private static final String[] SQL_LOGGERS = {"org.hibernate.SQL", "org.hibernate.orm.jdbc.bind"};
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (MDC.get(MDC_KEY) == null) {
+            return FilterReply.NEUTRAL;
+        }
+        for (var sqlLogger : SQL_LOGGERS) {
+            if (logger.getName().startsWith(sqlLogger)) {
+                return FilterReply.ACCEPT;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
@@ -0,0 +1,69 @@
+package academy.devdojo.user_service.logging;
+
+import academy.devdojo.user_service.config.UserLoggingProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Access log for the user endpoints, one key=value line per request on the {@code access} logger.
+ * Successful requests are sampled at {@code user-service.logging.access-sample-rate}; errors and requests slower than
+ * {@code slow-request-threshold} are always logged. When {@code sql-debug-header-enabled} is on, a request carrying
+ * {@value #SQL_DEBUG_HEADER} gets its SQL logged through {@link SqlDebugTurboFilter}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class UserAccessLogFilter extends OncePerRequestFilter {
+    public static final String SQL_DEBUG_HEADER = "X-Debug-Sql";
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("academy.devdojo.user_service.access");
+    private static final String USERS_PATH = "/v1/users";
+    private final UserLoggingProperties properties;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(USERS_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        var sqlDebug = properties.sqlDebugHeaderEnabled() && request.getHeader(SQL_DEBUG_HEADER) != null;
+        if (sqlDebug) {
+            MDC.put(SqlDebugTurboFilter.MDC_KEY, "true");
+        }
+
+        var start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            var durationNanos = System.nanoTime() - start;
+            if (sqlDebug) {
+                MDC.remove(SqlDebugTurboFilter.MDC_KEY);
+            }
+            if (ACCESS_LOG.isInfoEnabled() && shouldLog(response.getStatus(), durationNanos, sqlDebug)) {
+                ACCESS_LOG.info("method={} path={} query={} status={} duration_ms={} async={}",
+                        request.getMethod(), request.getRequestURI(), request.getQueryString(), response.getStatus(),
+                        durationNanos / 1_000_000, request.isAsyncStarted());
+            }
+        }
+    }
+
+    private boolean shouldLog(int status, long durationNanos, boolean sqlDebug) {
+        return sqlDebug
+                || status >= 400
+                || durationNanos >= properties.slowRequestThreshold().toNanos()
+                || ThreadLocalRandom.current().nextDouble() < properties.accessSampleRate();
+    }
+}
@@ -1,11 +1,15 @@
 package academy.devdojo.user_service.mapper;
 
 import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.domain.UserChange;
+import academy.devdojo.user_service.projection.UserSummary;
 import academy.devdojo.user_service.request.UserPostRequest;
 import academy.devdojo.user_service.request.UserPutRequest;
+import academy.devdojo.user_service.response.UserChangeGetResponse;
 import academy.devdojo.user_service.response.UserGetResponse;
 import academy.devdojo.user_service.response.UserPostResponse;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingConstants;
 
 import java.util.List;
@@ -13,13 +17,27 @@ import java.util.List;
 @Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
 public interface UserMapper {
 
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     User toUser(UserPostRequest userPostRequest);
 
+    @Mapping(target = "version", ignore = true)
     User toUser(UserPutRequest userPutRequest);
 
     UserPostResponse toUserPostResponse(User user);
 
+    List<UserPostResponse> toUserPostResponseList(List<User> users);
+
     UserGetResponse toUserGetResponse(User user);
 
+    UserGetResponse toUserGetResponse(UserSummary userSummary);
+
     List<UserGetResponse> toUserGetResponseList(List<User> users);
+
+    List<UserGetResponse> toUserGetResponseListFromSummaries(List<UserSummary> userSummaries);
+
+    @Mapping(target = "offset", source = "changeOffset")
+    UserChangeGetResponse toUserChangeGetResponse(UserChange userChange);
+
+    List<UserChangeGetResponse> toUserChangeGetResponseList(List<UserChange> userChanges);
 }
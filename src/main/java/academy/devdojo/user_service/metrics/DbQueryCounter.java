@@ -0,0 +1,33 @@
+package academy.devdojo.user_service.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the statements Hibernate prepares on the current thread between {@link #start()} and {@link #stop()}.
+ * Threads that never called {@link #start()} are not counted. Statements issued through {@code JdbcTemplate} bypass
+ * Hibernate and are not seen here.
+ */
+@Component
+public class DbQueryCounter implements StatementInspector {
+    private final ThreadLocal<int[]> counts = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        var count = counts.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    public void start() {
+        counts.set(new int[1]);
+    }
+
+    public int stop() {
+        var count = counts.get();
+        counts.remove();
+        return count == null ? 0 : count[0];
+    }
+}
@@ -0,0 +1,54 @@
+package academy.devdojo.user_service.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many statements each user request sent to the database in the {@code user.http.db.queries}
+ * distribution, tagged like {@code http.server.requests}. An N+1 or an extra round trip shows up as a shift in
+ * its buckets for the affected route.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class DbQueryMetricsFilter extends OncePerRequestFilter {
+    private static final String USERS_PATH = "/v1/users";
+    private final DbQueryCounter counter;
+    private final MeterRegistry registry;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(USERS_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        counter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            var queries = counter.stop();
+            var uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("user.http.db.queries")
+                    .description("Statements sent to the database per request")
+                    .baseUnit("queries")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                    .serviceLevelObjectives(1, 2, 3, 5, 10, 50)
+                    .register(registry)
+                    .record(queries);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package academy.devdojo.user_service.metrics;
+
+import academy.devdojo.user_service.domain.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import java.util.List;
+
+/**
+ * Publishes size, hits, misses and evictions of every region of the Hibernate second-level cache as
+ * {@code cache.*} metrics tagged {@code cache.manager=hibernate}, next to the ones of the application caches. Hibernate's
+ * own {@code hibernate.*} metrics count requests, but not how full a region is or how much it evicts, which is what
+ * sizing it in {@code application.conf} needs. The regions are listed here and read from the {@link CacheManager}
+ * Hibernate was handed by {@code MetricsConfiguration}.
+ */
+@Component
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class HibernateCacheMetrics implements MeterBinder {
+    private static final List<String> REGIONS = List.of(User.CACHE_REGION);
+    private final CacheManager hibernateCacheManager;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (var name : REGIONS) {
+            Cache<?, ?> cache = hibernateCacheManager.getCache(name).unwrap(Cache.class);
+            CaffeineCacheMetrics.monitor(registry, cache, name, "cache.manager", "hibernate");
+        }
+    }
+}
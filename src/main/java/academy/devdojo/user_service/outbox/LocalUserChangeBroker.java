@@ -0,0 +1,80 @@
+package academy.devdojo.user_service.outbox;
+
+import academy.devdojo.user_service.domain.UserChange;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process stand-in for a message broker: remembers the highest published offset and wakes up the
+ * {@code v1/users/changes} callers waiting for it. Consumers read the changes themselves from the outbox table, so
+ * nothing is lost when nobody is waiting. The relay publishes here only in its own instance; on the others
+ * {@link UserChangePoller} moves the offset forward from the database. Uses a {@link ReentrantLock} rather than a
+ * monitor so waiting virtual threads do not pin their carrier.
+ */
+@Component
+@Profile("!reactive")
+public class LocalUserChangeBroker implements UserChangePublisher {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private long lastOffset;
+
+    @Override
+    public void publish(List<UserChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        advanceTo(changes.getLast().getChangeOffset());
+    }
+
+    /**
+     * Wakes up the callers waiting for an offset up to {@code offset}, when it is past the highest one seen so far.
+     */
+    public void advanceTo(long offset) {
+        lock.lock();
+        try {
+            if (offset > lastOffset) {
+                lastOffset = offset;
+                published.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean hasWaiters() {
+        lock.lock();
+        try {
+            return lock.hasWaiters(published);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a change after {@code offset} is published, at most {@code timeout}.
+     *
+     * @return whether such a change was published
+     */
+    public boolean awaitPublishedAfter(long offset, Duration timeout) throws InterruptedException {
+        var remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (lastOffset <= offset) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = published.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package academy.devdojo.user_service.outbox;
+
+import academy.devdojo.user_service.concurrency.UserBulkhead;
+import academy.devdojo.user_service.config.UserOutboxProperties;
+import academy.devdojo.user_service.repository.UserChangeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stands in for the relay's in-process signal on instances that run without it ({@code relay-enabled: false}): every
+ * {@code user-service.outbox.poll-interval}, while some {@code v1/users/changes} caller is waiting, reads the highest
+ * published offset and hands it to the {@link LocalUserChangeBroker}, so long-polls and SSE streams there wake up
+ * within one interval instead of at {@code max-wait}. Costs no query while nobody waits.
+ */
+@Component
+@Lazy(false)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "user-service.outbox.relay-enabled", havingValue = "false")
+@RequiredArgsConstructor
+public class UserChangePoller implements SchedulingConfigurer {
+    private final UserChangeRepository repository;
+    private final LocalUserChangeBroker broker;
+    private final UserBulkhead bulkhead;
+    private final UserOutboxProperties properties;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::poll, properties.pollInterval());
+    }
+
+    public void poll() {
+        if (!broker.hasWaiters()) {
+            return;
+        }
+        bulkhead.callInBackground(repository::findMaxChangeOffset).ifPresent(broker::advanceTo);
+    }
+}
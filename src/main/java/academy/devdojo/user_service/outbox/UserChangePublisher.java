@@ -0,0 +1,14 @@
+package academy.devdojo.user_service.outbox;
+
+import academy.devdojo.user_service.domain.UserChange;
+
+import java.util.List;
+
+/**
+ * Destination of the changes the {@link UserChangeRelay} takes out of the outbox. Called after the batch that assigned
+ * their offsets has committed, in offset order.
+ */
+public interface UserChangePublisher {
+
+    void publish(List<UserChange> changes);
+}
@@ -0,0 +1,73 @@
+package academy.devdojo.user_service.outbox;
+
+import academy.devdojo.user_service.concurrency.UserBulkhead;
+import academy.devdojo.user_service.config.UserOutboxProperties;
+import academy.devdojo.user_service.domain.UserChange;
+import academy.devdojo.user_service.repository.UserChangeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Moves committed outbox rows to the {@link UserChangePublisher} every {@code user-service.outbox.relay-interval}.
+ * Each batch gets consecutive offsets in id order and commits before it is published, so a consumer reading by offset
+ * never sees a gap that is filled later. The pending rows are locked while their offsets are assigned, which keeps two
+ * instances from numbering the same rows; set {@code relay-enabled: false} to run the relay on fewer of them.
+ * Each batch takes a {@link UserBulkhead} permit before its transaction, waiting behind requests rather than failing.
+ * Never lazy: nothing asks for it, so under {@code spring.main.lazy-initialization} it would never be scheduled.
+ */
+@Component
+@Lazy(false)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "user-service.outbox.relay-enabled", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class UserChangeRelay implements SchedulingConfigurer {
+    private final UserChangeRepository repository;
+    private final UserChangePublisher publisher;
+    private final TransactionTemplate transactionTemplate;
+    private final UserBulkhead bulkhead;
+    private final UserOutboxProperties properties;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::relay, properties.relayInterval());
+    }
+
+    public int relay() {
+        var relayed = 0;
+        List<UserChange> changes;
+        do {
+            changes = bulkhead.callInBackground(() -> transactionTemplate.execute(status -> assignOffsets()));
+            publisher.publish(changes);
+            relayed += changes.size();
+        } while (changes.size() == properties.batchSize());
+
+        if (relayed > 0) {
+            log.debug("Relayed '{}' user changes", relayed);
+        }
+        return relayed;
+    }
+
+    private List<UserChange> assignOffsets() {
+        var changes = repository.findByChangeOffsetIsNullOrderById(Limit.of(properties.batchSize()));
+        if (changes.isEmpty()) {
+            return changes;
+        }
+
+        var offset = repository.findMaxChangeOffset().orElse(0L);
+        for (var change : changes) {
+            change.setChangeOffset(++offset);
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,64 @@
+package academy.devdojo.user_service.outbox;
+
+import academy.devdojo.user_service.concurrency.UserBulkhead;
+import academy.devdojo.user_service.config.UserOutboxProperties;
+import academy.devdojo.user_service.repository.UserChangeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+/**
+ * Deletes the published changes written more than {@code user-service.outbox.retention} ago, every
+ * {@code retention-interval}, on the instances that run the relay. Rows go in offset order, {@code batch-size} offsets
+ * per transaction, and the highest published offset is always kept so the relay goes on numbering after it. A consumer
+ * that falls further behind than the retention misses the pruned changes and has to read the users again.
+ */
+@Component
+@Lazy(false)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "user-service.outbox.relay-enabled", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class UserChangeRetention implements SchedulingConfigurer {
+    private final UserChangeRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserBulkhead bulkhead;
+    private final UserOutboxProperties properties;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(() -> prune(Instant.now().minus(properties.retention())), properties.retentionInterval());
+    }
+
+    /**
+     * @return how many changes written before {@code cutoff} were deleted
+     */
+    public long prune(Instant cutoff) {
+        var expired = bulkhead.callInBackground(() -> repository.findMaxChangeOffsetWrittenBefore(cutoff));
+        var last = bulkhead.callInBackground(repository::findMaxChangeOffset);
+        var first = bulkhead.callInBackground(repository::findMinChangeOffset);
+        if (expired.isEmpty() || last.isEmpty() || first.isEmpty()) {
+            return 0;
+        }
+
+        var upTo = Math.min(expired.get(), last.get() - 1);
+        var deleted = 0L;
+        for (var from = first.get(); from <= upTo; from += properties.batchSize()) {
+            var to = Math.min(from + properties.batchSize() - 1, upTo);
+            deleted += bulkhead.callInBackground(() -> transactionTemplate.execute(status -> repository.deleteUpToChangeOffset(to)));
+        }
+
+        if (deleted > 0) {
+            log.info("Pruned '{}' user changes written before '{}'", deleted, cutoff);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,4 @@
+package academy.devdojo.user_service.projection;
+
+public record UserSummary(Long id, String firstName, String lastName, String email) {
+}
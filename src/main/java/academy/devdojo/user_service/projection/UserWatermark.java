@@ -0,0 +1,14 @@
+package academy.devdojo.user_service.projection;
+
+/**
+ * Changes with every committed user write, used as the ETag of the user list. Each write inserts its outbox row in the
+ * same transaction, raising the count of rows the relay has not numbered yet; the relay numbers them in one
+ * transaction, raising the highest offset. Within one offset the pending count only grows, so a value never comes back.
+ * It covers the whole table, so a list filtered by name also gets a new ETag when a user outside the filter changes.
+ */
+public record UserWatermark(Long lastOffset, Long pending) {
+
+    public String etag() {
+        return "%d-%d".formatted(lastOffset == null ? 0 : lastOffset, pending == null ? 0 : pending);
+    }
+}
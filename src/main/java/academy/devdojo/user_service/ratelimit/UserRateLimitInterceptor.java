@@ -0,0 +1,42 @@
+package academy.devdojo.user_service.ratelimit;
+
+import academy.devdojo.user_service.config.UserRateLimitProperties;
+import academy.devdojo.user_service.exception.TooManyRequestsException;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Rejects a request with 429 and {@code Retry-After} when its client has no permit left for the route. The client is
+ * the value of {@code user-service.rate-limit.api-key-header} when it is one of {@code api-keys}, otherwise the remote
+ * address, which behind a trusted proxy is the caller's address from {@code X-Forwarded-For}
+ * ({@code server.forward-headers-strategy}). Unknown keys are ignored, so they neither get a bucket of their own nor
+ * escape the address limit. The route is the handler method name, and async redispatches of a request already admitted
+ * are not counted again.
+ */
+@RequiredArgsConstructor
+public class UserRateLimitInterceptor implements HandlerInterceptor {
+    private final UserRateLimiter limiter;
+    private final UserRateLimitProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+
+        var retryAfter = limiter.tryAcquire(method.getMethod().getName(), client(request));
+        if (!retryAfter.isZero()) {
+            throw new TooManyRequestsException(retryAfter);
+        }
+        return true;
+    }
+
+    private String client(HttpServletRequest request) {
+        var apiKey = request.getHeader(properties.apiKeyHeader());
+        return apiKey != null && properties.apiKeys().contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+}
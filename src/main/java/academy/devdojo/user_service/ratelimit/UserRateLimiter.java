@@ -0,0 +1,96 @@
+package academy.devdojo.user_service.ratelimit;
+
+import academy.devdojo.user_service.config.UserRateLimitProperties;
+import academy.devdojo.user_service.config.UserRateLimitProperties.Limit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Token buckets per route and client, kept as the generic cell rate algorithm: each bucket is a single
+ * {@link AtomicLong} holding the theoretical arrival time of the next request, moved forward by one emission interval
+ * per accepted request with a compare-and-set, so taking a permit never locks. A request is accepted while that time
+ * is at most {@code burst} intervals ahead of now. Buckets live in a bounded cache and are dropped once idle long enough
+ * to be full again, which is the same as keeping them.
+ * <p>
+ * Metrics are per route, not per client: {@code user.rate.limit.requests} tagged by {@code route} and {@code result},
+ * and the number of live buckets in {@code user.rate.limit.buckets}.
+ */
+public class UserRateLimiter {
+    private final UserRateLimitProperties properties;
+    private final MeterRegistry registry;
+    private final Cache<Bucket, AtomicLong> buckets;
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    public UserRateLimiter(UserRateLimitProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+        var refillNanos = Stream.concat(Stream.of(properties.defaultLimit()), properties.routes().values().stream())
+                .mapToLong(limit -> intervalNanos(limit) * limit.burst())
+                .max()
+                .orElseThrow();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.maximumBuckets())
+                .expireAfterAccess(Duration.ofNanos(refillNanos))
+                .build();
+        Gauge.builder("user.rate.limit.buckets", buckets, Cache::estimatedSize)
+                .description("Client buckets currently tracked")
+                .register(registry);
+    }
+
+    /**
+     * Takes a permit from the client's bucket for the route.
+     *
+     * @return {@link Duration#ZERO} when taken, otherwise how long until the next permit
+     */
+    public Duration tryAcquire(String route, String client) {
+        var limit = routes.computeIfAbsent(route, this::newRoute);
+        var now = System.nanoTime();
+        var arrival = buckets.get(new Bucket(route, client), bucket -> new AtomicLong(now));
+        while (true) {
+            var current = arrival.get();
+            var next = Math.max(current, now) + limit.intervalNanos();
+            var waitNanos = next - limit.burstNanos() - now;
+            if (waitNanos > 0) {
+                limit.rejected().increment();
+                return Duration.ofNanos(waitNanos);
+            }
+            if (arrival.compareAndSet(current, next)) {
+                limit.allowed().increment();
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    private Route newRoute(String route) {
+        var limit = properties.routes().getOrDefault(route, properties.defaultLimit());
+        var intervalNanos = intervalNanos(limit);
+        return new Route(intervalNanos, intervalNanos * limit.burst(), counter(route, "allowed"), counter(route, "rejected"));
+    }
+
+    private Counter counter(String route, String result) {
+        return Counter.builder("user.rate.limit.requests")
+                .description("Requests checked against the per-client rate limit")
+                .tag("route", route)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static long intervalNanos(Limit limit) {
+        return (long) (1_000_000_000L / limit.permitsPerSecond());
+    }
+
+    private record Bucket(String route, String client) {
+    }
+
+    private record Route(long intervalNanos, long burstNanos, Counter allowed, Counter rejected) {
+    }
+}
@@ -0,0 +1,135 @@
+package academy.devdojo.user_service.repository;
+
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.projection.UserSummary;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * R2DBC access to {@code user} for the {@code reactive} profile. Written against {@link DatabaseClient} rather than
+ * a Spring Data repository interface: {@link User} is a JPA entity, so JPA repository scanning would claim any
+ * repository declared for it. Reads return {@link UserSummary} rows straight from the driver.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserRepository {
+    private static final String SELECT_SUMMARY = "select id, first_name, last_name, email from `user` ";
+    private final DatabaseClient databaseClient;
+
+    public Flux<UserSummary> streamAll() {
+        return databaseClient.sql(SELECT_SUMMARY + "order by id")
+                .map(ReactiveUserRepository::toUserSummary)
+                .all();
+    }
+
+    public Flux<UserSummary> streamByFirstNameIgnoreCase(String name) {
+        return databaseClient.sql(SELECT_SUMMARY + "where upper(first_name) = upper(:name) order by id")
+                .bind("name", name)
+                .map(ReactiveUserRepository::toUserSummary)
+                .all();
+    }
+
+    public Mono<UserSummary> findSummaryById(Long id) {
+        return databaseClient.sql(SELECT_SUMMARY + "where id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::toUserSummary)
+                .one();
+    }
+
+    /**
+     * @return the user and its version, the strong ETag of {@code GET v1/users/{id}}
+     */
+    public Mono<Tuple2<UserSummary, Long>> findSummaryAndVersionById(Long id) {
+        return databaseClient.sql("select id, first_name, last_name, email, version from `user` where id = :id")
+                .bind("id", id)
+                .map(row -> Tuples.of(toUserSummary(row), row.get("version", Long.class)))
+                .one();
+    }
+
+    public Mono<Boolean> existsById(Long id) {
+        return databaseClient.sql("select 1 from `user` where id = :id")
+                .bind("id", id)
+                .map(row -> true)
+                .first()
+                .defaultIfEmpty(false);
+    }
+
+    public Flux<UserSummary> findSummariesByIdGreaterThan(Long id, int limit) {
+        return databaseClient.sql(SELECT_SUMMARY + "where id > :id order by id limit :limit")
+                .bind("id", id)
+                .bind("limit", limit)
+                .map(ReactiveUserRepository::toUserSummary)
+                .all();
+    }
+
+    public Flux<UserSummary> findSummariesByFirstNameIgnoreCaseAndIdGreaterThan(String name, Long id, int limit) {
+        return databaseClient.sql(SELECT_SUMMARY + "where upper(first_name) = upper(:name) and id > :id order by id limit :limit")
+                .bind("name", name)
+                .bind("id", id)
+                .bind("limit", limit)
+                .map(ReactiveUserRepository::toUserSummary)
+                .all();
+    }
+
+    public Mono<User> insert(User user) {
+        return databaseClient.sql("insert into `user` (first_name, last_name, email) values (:firstName, :lastName, :email)")
+                .bind("firstName", user.getFirstName())
+                .bind("lastName", user.getLastName())
+                .bind("email", user.getEmail())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(user::withId);
+    }
+
+    public Mono<Long> updateById(Long id, String firstName, String lastName, String email) {
+        return databaseClient.sql("update `user` set first_name = :firstName, last_name = :lastName, email = :email, version = version + 1 where id = :id")
+                .bind("firstName", firstName)
+                .bind("lastName", lastName)
+                .bind("email", email)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> updateByIdAndVersion(Long id, Long version, String firstName, String lastName, String email) {
+        return databaseClient.sql("update `user` set first_name = :firstName, last_name = :lastName, email = :email, version = version + 1 where id = :id and version = :version")
+                .bind("firstName", firstName)
+                .bind("lastName", lastName)
+                .bind("email", email)
+                .bind("id", id)
+                .bind("version", version)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> removeById(Long id) {
+        return databaseClient.sql("delete from `user` where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Clears the names and email of every {@code user_change} row of the user, like {@link UserChangeRepository#scrubByUserId}.
+     */
+    public Mono<Long> scrubChangesByUserId(Long userId) {
+        return databaseClient.sql("update user_change set first_name = null, last_name = null, email = null where user_id = :userId")
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static UserSummary toUserSummary(Readable row) {
+        return new UserSummary(row.get("id", Long.class), row.get("first_name", String.class),
+                row.get("last_name", String.class), row.get("email", String.class));
+    }
+}
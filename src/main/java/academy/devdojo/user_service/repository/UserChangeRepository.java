@@ -0,0 +1,46 @@
+package academy.devdojo.user_service.repository;
+
+import academy.devdojo.user_service.domain.UserChange;
+import academy.devdojo.user_service.projection.UserWatermark;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserChangeRepository extends JpaRepository<UserChange, Long>, UserChangeRepositoryCustom {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<UserChange> findByChangeOffsetIsNullOrderById(Limit limit);
+
+    @Query("select max(c.changeOffset) from UserChange c")
+    Optional<Long> findMaxChangeOffset();
+
+    @Query("select min(c.changeOffset) from UserChange c")
+    Optional<Long> findMinChangeOffset();
+
+    @Query(value = "select max(change_offset) from user_change where created_at < :cutoff", nativeQuery = true)
+    Optional<Long> findMaxChangeOffsetWrittenBefore(Instant cutoff);
+
+    List<UserChange> findByChangeOffsetGreaterThanOrderByChangeOffset(Long changeOffset, Limit limit);
+
+    @Modifying
+    @Query("delete from UserChange c where c.changeOffset <= :changeOffset")
+    int deleteUpToChangeOffset(Long changeOffset);
+
+    /**
+     * Clears the names and email of every change of the user, leaving their type and offset.
+     */
+    @Modifying
+    @Query("update UserChange c set c.firstName = null, c.lastName = null, c.email = null where c.userId = :userId")
+    int scrubByUserId(Long userId);
+
+    @Query("select new academy.devdojo.user_service.projection.UserWatermark(max(c.changeOffset),"
+            + " (select count(p) from UserChange p where p.changeOffset is null)) from UserChange c")
+    UserWatermark findWatermark();
+}
@@ -0,0 +1,10 @@
+package academy.devdojo.user_service.repository;
+
+import academy.devdojo.user_service.domain.UserChange;
+
+import java.util.List;
+
+public interface UserChangeRepositoryCustom {
+
+    void insertAll(List<UserChange> changes);
+}
@@ -0,0 +1,29 @@
+package academy.devdojo.user_service.repository;
+
+import academy.devdojo.user_service.domain.UserChange;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Writes the outbox rows of a batch import in one JDBC batch, next to {@link UserRepositoryCustomImpl#insertAll}.
+ */
+@RequiredArgsConstructor
+public class UserChangeRepositoryCustomImpl implements UserChangeRepositoryCustom {
+    private static final String INSERT_CHANGE = "insert into user_change (type, user_id, first_name, last_name, email) values (?, ?, ?, ?, ?)";
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void insertAll(List<UserChange> changes) {
+        jdbcTemplate.batchUpdate(INSERT_CHANGE, changes, changes.size(), (ps, change) -> {
+            ps.setString(1, change.getType().name());
+            ps.setLong(2, change.getUserId());
+            ps.setString(3, change.getFirstName());
+            ps.setString(4, change.getLastName());
+            ps.setString(5, change.getEmail());
+        });
+    }
+}
@@ -1,16 +1,74 @@
 package academy.devdojo.user_service.repository;
 
 import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.projection.UserSummary;
+import academy.devdojo.user_service.response.UserGetResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
-    List<User> findByFirstNameIgnoreCase(String name);
+    @Query("select new academy.devdojo.user_service.response.UserGetResponse(u.firstName, u.lastName, u.email) from User u order by u.id")
+    List<UserGetResponse> findAllResponses(Limit limit);
 
-    Optional<User> findByEmail(String email);
+    @Query("select new academy.devdojo.user_service.response.UserGetResponse(u.firstName, u.lastName, u.email) from User u where upper(u.firstName) = upper(:name) order by u.id")
+    List<UserGetResponse> findResponsesByFirstNameIgnoreCase(String name, Limit limit);
 
-    Optional<User> findByEmailAndIdNot(String email, Long id);
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    @Query("select u from User u where u.id in :ids")
+    List<User> findByIdIn(Collection<Long> ids);
+
+    boolean existsByEmail(String email);
+
+    @Modifying
+    @Query("update User u set u.firstName = :firstName, u.lastName = :lastName, u.email = :email, u.version = u.version + 1 where u.id = :id")
+    int updateById(Long id, String firstName, String lastName, String email);
+
+    @Modifying
+    @Query("update User u set u.firstName = :firstName, u.lastName = :lastName, u.email = :email, u.version = u.version + 1 where u.id = :id and u.version = :version")
+    int updateByIdAndVersion(Long id, Long version, String firstName, String lastName, String email);
+
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int removeById(Long id);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findEmailsByEmailIn(Collection<String> emails);
+
+    @Query("select new academy.devdojo.user_service.projection.UserSummary(u.id, u.firstName, u.lastName, u.email) from User u where u.email in :emails")
+    List<UserSummary> findSummariesByEmailIn(Collection<String> emails);
+
+    @Query("select new academy.devdojo.user_service.projection.UserSummary(u.id, u.firstName, u.lastName, u.email) from User u where u.id > :id order by u.id")
+    List<UserSummary> findSummariesByIdGreaterThan(Long id, Limit limit);
+
+    @Query("select new academy.devdojo.user_service.projection.UserSummary(u.id, u.firstName, u.lastName, u.email) from User u where upper(u.firstName) = upper(:name) and u.id > :id order by u.id")
+    List<UserSummary> findSummariesByFirstNameIgnoreCaseAndIdGreaterThan(String name, Long id, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new academy.devdojo.user_service.response.UserGetResponse(u.firstName, u.lastName, u.email) from User u order by u.id")
+    Stream<UserGetResponse> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new academy.devdojo.user_service.response.UserGetResponse(u.firstName, u.lastName, u.email) from User u where upper(u.firstName) = upper(:name) order by u.id")
+    Stream<UserGetResponse> streamByFirstNameIgnoreCase(String name);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new academy.devdojo.user_service.projection.UserSummary(u.id, u.firstName, u.lastName, u.email) from User u")
+    Stream<UserSummary> streamAllForSearch();
 }
@@ -0,0 +1,14 @@
+package academy.devdojo.user_service.repository;
+
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.response.UserPostResponse;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface UserRepositoryCustom {
+
+    List<User> insertAll(List<User> users);
+
+    void exportAll(String name, int fetchSize, Consumer<UserPostResponse> action);
+}
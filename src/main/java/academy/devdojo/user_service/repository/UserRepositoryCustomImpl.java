@@ -0,0 +1,84 @@
+package academy.devdojo.user_service.repository;
+
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.response.UserPostResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Inserts users through a single JDBC batch. {@code GenerationType.IDENTITY} keeps Hibernate from batching
+ * inserts, while the driver can still send the batch as one multi-row insert and hand back the generated ids.
+ * Hibernate does not see the batch and needs not to: the rows are new, so no cached entity is stale, and there is no
+ * query cache to invalidate.
+ * <p>
+ * Exports read the table through a forward-only, read-only cursor that brings {@code fetchSize} rows per round trip,
+ * so memory stays flat whatever the size of the table; MySQL only does so with {@code useCursorFetch=true} in the URL.
+ * Rows are handed over as they are read, without going through the persistence context.
+ */
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    private static final String INSERT_USER = "insert into `user` (first_name, last_name, email) values (?, ?, ?)";
+    private static final String EXPORT_ALL = "select id, first_name, last_name, email from `user` order by id";
+    private static final String EXPORT_BY_NAME = "select id, first_name, last_name, email from `user` where upper(first_name) = upper(?) order by id";
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public List<User> insertAll(List<User> users) {
+        var keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_USER, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        var user = users.get(i);
+                        ps.setString(1, user.getFirstName());
+                        ps.setString(2, user.getLastName());
+                        ps.setString(3, user.getEmail());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return users.size();
+                    }
+                }, keyHolder);
+
+        var keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            var id = (Number) keys.get(i).values().iterator().next();
+            users.get(i).setId(id.longValue());
+            users.get(i).setVersion(0L);
+        }
+        return users;
+    }
+
+    @Override
+    public void exportAll(String name, int fetchSize, Consumer<UserPostResponse> action) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(name == null ? EXPORT_ALL : EXPORT_BY_NAME,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            if (name != null) {
+                statement.setString(1, name);
+            }
+            return statement;
+        }, (RowCallbackHandler) resultSet -> {
+            var user = new UserPostResponse();
+            user.setId(resultSet.getLong(1));
+            user.setFirstName(resultSet.getString(2));
+            user.setLastName(resultSet.getString(3));
+            user.setEmail(resultSet.getString(4));
+            action.accept(user);
+        });
+    }
+}
@@ -1,7 +1,7 @@
 package academy.devdojo.user_service.request;
 
+import academy.devdojo.user_service.validation.ValidEmail;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
@@ -20,6 +20,6 @@ public class UserPutRequest {
     private String lastName;
     @JsonProperty("email")
     @NotBlank(message = "The field 'email' is required ")
-    @Email(regexp = "^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$", message = "The e-mail is not valid")
+    @ValidEmail(message = "The e-mail is not valid")
     private String email;
 }
@@ -0,0 +1,23 @@
+package academy.devdojo.user_service.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchItemResponse {
+    private int index;
+    private Status status;
+    private Long id;
+    private List<String> errors;
+
+    public enum Status {
+        CREATED, INVALID, EMAIL_EXISTS
+    }
+}
@@ -0,0 +1,18 @@
+package academy.devdojo.user_service.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchPostResponse {
+    private int created;
+    private int failed;
+    private List<UserBatchItemResponse> items;
+}
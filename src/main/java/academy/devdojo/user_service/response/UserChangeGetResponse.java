@@ -0,0 +1,26 @@
+package academy.devdojo.user_service.response;
+
+import academy.devdojo.user_service.domain.UserChange;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserChangeGetResponse {
+    private Long offset;
+    private UserChange.Type type;
+    private Long userId;
+    @JsonProperty("name")
+    private String firstName;
+    @JsonProperty("second name")
+    private String lastName;
+    @JsonProperty("email")
+    private String email;
+}
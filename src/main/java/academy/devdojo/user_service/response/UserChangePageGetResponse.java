@@ -0,0 +1,17 @@
+package academy.devdojo.user_service.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChangePageGetResponse {
+    private List<UserChangeGetResponse> changes;
+    private Long next;
+}
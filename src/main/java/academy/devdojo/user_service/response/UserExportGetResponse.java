@@ -0,0 +1,24 @@
+package academy.devdojo.user_service.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserExportGetResponse {
+    private UUID exportId;
+    private Status status;
+    private String file;
+    private Long rows;
+    private String error;
+
+    public enum Status {
+        PENDING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,15 @@
+package academy.devdojo.user_service.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserExportPostResponse {
+    private String file;
+    private long rows;
+}
@@ -0,0 +1,24 @@
+package academy.devdojo.user_service.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserWriteGetResponse {
+    private UUID trackingId;
+    private Status status;
+    private Long id;
+    private List<String> errors;
+
+    public enum Status {
+        PENDING, CREATED, INVALID, EMAIL_EXISTS
+    }
+}
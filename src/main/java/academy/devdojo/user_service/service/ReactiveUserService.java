@@ -0,0 +1,86 @@
+package academy.devdojo.user_service.service;
+
+import academy.devdojo.exception.EmailExistsException;
+import academy.devdojo.exception.NotFoundException;
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.exception.PreconditionFailedException;
+import academy.devdojo.user_service.projection.UserSummary;
+import academy.devdojo.user_service.repository.ReactiveUserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+/**
+ * Non-blocking counterpart of {@link UserService} for the {@code reactive} profile. The unique constraint on
+ * {@code user.email} is the only e-mail check: the in-memory indexes, the bulkhead and the {@code user_change} outbox
+ * belong to the servlet deployment. Nothing here relays or prunes the outbox, so writes add no rows to it; a delete
+ * still clears the names and email of the rows a servlet deployment on the same database left for that user.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserService {
+    private final ReactiveUserRepository repository;
+    private final TransactionalOperator transactionalOperator;
+
+    public Flux<UserSummary> findAll(String name) {
+        return name == null ? repository.streamAll() : repository.streamByFirstNameIgnoreCase(name);
+    }
+
+    public Flux<UserSummary> findAllAfter(String name, Long after, int limit) {
+        return name == null
+                ? repository.findSummariesByIdGreaterThan(after, limit)
+                : repository.findSummariesByFirstNameIgnoreCaseAndIdGreaterThan(name, after, limit);
+    }
+
+    public Mono<UserSummary> findByIdOrThrowNotFound(Long id) {
+        return repository.findSummaryById(id).switchIfEmpty(Mono.error(() -> new NotFoundException("User not Found")));
+    }
+
+    public Mono<Tuple2<UserSummary, Long>> findVersionedByIdOrThrowNotFound(Long id) {
+        return repository.findSummaryAndVersionById(id).switchIfEmpty(Mono.error(() -> new NotFoundException("User not Found")));
+    }
+
+    public Mono<User> save(User userToSave) {
+        return repository.insert(userToSave)
+                .onErrorMap(DataIntegrityViolationException.class, e -> new EmailExistsException(userToSave.getEmail()));
+    }
+
+    public Mono<Void> delete(Long id) {
+        return repository.removeById(id)
+                .flatMap(this::assertRowChanged)
+                .then(repository.scrubChangesByUserId(id))
+                .as(transactionalOperator::transactional)
+                .then();
+    }
+
+    /**
+     * Updates only while the row is still at {@code user.getVersion()} when it is set, like {@link UserService#update}.
+     */
+    public Mono<Void> update(User user) {
+        var rows = user.getVersion() == null
+                ? repository.updateById(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail())
+                : repository.updateByIdAndVersion(user.getId(), user.getVersion(), user.getFirstName(), user.getLastName(), user.getEmail());
+        return rows
+                .onErrorMap(DataIntegrityViolationException.class, e -> new EmailExistsException(user.getEmail()))
+                .flatMap(updated -> updated == 0 ? notUpdated(user) : Mono.<Void>empty());
+    }
+
+    private Mono<Void> notUpdated(User user) {
+        if (user.getVersion() == null) {
+            return Mono.error(new NotFoundException("User not Found"));
+        }
+        return repository.existsById(user.getId()).flatMap(exists -> Mono.error(exists
+                ? new PreconditionFailedException("User was modified since version %d".formatted(user.getVersion()))
+                : new NotFoundException("User not Found")));
+    }
+
+    private Mono<Void> assertRowChanged(long rows) {
+        return rows == 0 ? Mono.error(new NotFoundException("User not Found")) : Mono.empty();
+    }
+}
@@ -0,0 +1,46 @@
+package academy.devdojo.user_service.service;
+
+import academy.devdojo.user_service.domain.UserChange;
+import academy.devdojo.user_service.outbox.LocalUserChangeBroker;
+import academy.devdojo.user_service.repository.UserChangeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reads the published user changes for {@code v1/users/changes}. Not transactional on purpose: a caller waiting for
+ * new changes must not hold a database permit, only the two reads around the wait take one.
+ */
+@Service
+@RequiredArgsConstructor
+@Profile("!reactive")
+public class UserChangeService {
+    private final UserChangeRepository repository;
+    private final LocalUserChangeBroker broker;
+
+    public List<UserChange> findAfter(long offset, int limit) {
+        return repository.findByChangeOffsetGreaterThanOrderByChangeOffset(offset, Limit.of(limit));
+    }
+
+    /**
+     * Same as {@link #findAfter}, but when nothing was published after {@code offset} yet, waits up to {@code wait}
+     * for the relay to publish something. Returns an empty list when the wait runs out or the thread is interrupted.
+     */
+    public List<UserChange> awaitAfter(long offset, int limit, Duration wait) {
+        var changes = findAfter(offset, limit);
+        if (!changes.isEmpty() || wait.isZero()) {
+            return changes;
+        }
+
+        try {
+            return broker.awaitPublishedAfter(offset, wait) ? findAfter(offset, limit) : List.of();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package academy.devdojo.user_service.service;
+
+import academy.devdojo.user_service.concurrency.UserBulkhead;
+import academy.devdojo.user_service.config.UserExportProperties;
+import academy.devdojo.user_service.exception.ServiceBusyException;
+import academy.devdojo.user_service.response.UserExportGetResponse;
+import academy.devdojo.user_service.response.UserExportGetResponse.Status;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File exports of {@code POST v1/users/exports}, run in the background so the request returns as soon as the export is
+ * accepted. Exports have an executor of their own with {@code user-service.export.concurrent-exports} virtual threads
+ * and room for {@code queued-exports} more, so at most that many {@link UserBulkhead} permits are ever held or awaited
+ * by exports, however long they read; a submit past the queue is refused with a 503 instead of piling up. Running and
+ * queued exports are kept until they end, and their outcome for {@code status-retention}; outcomes are local to the
+ * instance and lost on restart.
+ */
+@Service
+@Slf4j
+@Profile("!reactive")
+public class UserExportJobs implements DisposableBean {
+    private final UserExportService exportService;
+    private final UserBulkhead bulkhead;
+    private final UserExportProperties properties;
+    private final ExecutorService executor;
+    private final Map<UUID, UserExportGetResponse> pending = new ConcurrentHashMap<>();
+    private final Cache<UUID, UserExportGetResponse> completed;
+
+    public UserExportJobs(UserExportService exportService, UserBulkhead bulkhead, UserExportProperties properties) {
+        this.exportService = exportService;
+        this.bulkhead = bulkhead;
+        this.properties = properties;
+        this.executor = new ThreadPoolExecutor(properties.concurrentExports(), properties.concurrentExports(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.queuedExports()),
+                Thread.ofVirtual().name("user-export-", 0).factory());
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(properties.maximumStatuses())
+                .expireAfterWrite(properties.statusRetention())
+                .build();
+    }
+
+    /**
+     * @return the pending export, running or queued
+     * @throws ServiceBusyException when {@code concurrent-exports} are running and {@code queued-exports} waiting
+     */
+    public UserExportGetResponse submit(String name, UserExportService.Format format, boolean gzip) {
+        var export = new UserExportGetResponse(UUID.randomUUID(), Status.PENDING, null, null, null);
+        pending.put(export.getExportId(), export);
+        try {
+            executor.execute(() -> run(export.getExportId(), name, format, gzip));
+        } catch (RejectedExecutionException e) {
+            pending.remove(export.getExportId());
+            throw new ServiceBusyException("Too many exports in progress, retry later", properties.retryAfter());
+        }
+        return export;
+    }
+
+    public Optional<UserExportGetResponse> findById(UUID exportId) {
+        return Optional.ofNullable(pending.get(exportId)).or(() -> Optional.ofNullable(completed.getIfPresent(exportId)));
+    }
+
+    private void run(UUID exportId, String name, UserExportService.Format format, boolean gzip) {
+        UserExportGetResponse export;
+        try {
+            var file = bulkhead.callInBackground(() -> {
+                try {
+                    return exportService.exportToFile(name, format, gzip);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            export = new UserExportGetResponse(exportId, Status.COMPLETED, file.getFile(), file.getRows(), null);
+        } catch (RuntimeException e) {
+            log.error("Export '{}' failed", exportId, e);
+            export = new UserExportGetResponse(exportId, Status.FAILED, null, null, "The export failed");
+        }
+        completed.put(exportId, export);
+        pending.remove(exportId);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,135 @@
+package academy.devdojo.user_service.service;
+
+import academy.devdojo.user_service.config.UserExportProperties;
+import academy.devdojo.user_service.repository.UserRepository;
+import academy.devdojo.user_service.response.UserExportPostResponse;
+import academy.devdojo.user_service.response.UserPostResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full dumps of the {@code user} table for analytics. Rows go from the repository's cursor through Jackson to the
+ * channel one at a time, so memory stays flat for tens of millions of users; only the encoder and the
+ * {@code user-service.export.buffer-size} buffer sit in between.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Profile("!reactive")
+public class UserExportService {
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+            .addColumn("id")
+            .addColumn("name")
+            .addColumn("second name")
+            .addColumn("email")
+            .setUseHeader(true)
+            .build();
+    private static final String PART_SUFFIX = ".part";
+    private final UserRepository repository;
+    private final ObjectMapper objectMapper;
+    private final UserExportProperties properties;
+
+    /**
+     * Writes the users, filtered by first name when given, to the channel and closes it.
+     *
+     * @return how many users were written
+     */
+    @Transactional(readOnly = true)
+    public long export(String name, Format format, boolean gzip, WritableByteChannel channel) throws IOException {
+        return write(name, format, gzip, channel);
+    }
+
+    /**
+     * Exports to a new file in {@code user-service.export.directory}. The file is written under a {@code .part} name
+     * and renamed once complete, so a reader of the directory never picks up a partial export.
+     */
+    @Transactional(readOnly = true)
+    public UserExportPostResponse exportToFile(String name, Format format, boolean gzip) throws IOException {
+        var directory = Files.createDirectories(properties.directory());
+        var part = Files.createTempFile(directory, "users-", format.fileExtension(gzip) + PART_SUFFIX);
+        try {
+            long rows;
+            try (var channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                rows = write(name, format, gzip, channel);
+            }
+            var fileName = part.getFileName().toString();
+            var file = Files.move(part, part.resolveSibling(fileName.substring(0, fileName.length() - PART_SUFFIX.length())),
+                    StandardCopyOption.ATOMIC_MOVE);
+            log.info("Exported '{}' users to '{}'", rows, file);
+            return new UserExportPostResponse(file.getFileName().toString(), rows);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+    }
+
+    private long write(String name, Format format, boolean gzip, WritableByteChannel channel) throws IOException {
+        var rows = new AtomicLong();
+        try (var outputStream = outputStream(channel, gzip);
+             var writer = writer(format).writeValues(outputStream)) {
+            repository.exportAll(name, properties.fetchSize(), user -> {
+                try {
+                    writer.write(user);
+                    rows.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return rows.get();
+    }
+
+    private OutputStream outputStream(WritableByteChannel channel, boolean gzip) throws IOException {
+        var bufferSize = (int) properties.bufferSize().toBytes();
+        var outputStream = Channels.newOutputStream(channel);
+        return gzip ? new GZIPOutputStream(outputStream, bufferSize) : new BufferedOutputStream(outputStream, bufferSize);
+    }
+
+    private ObjectWriter writer(Format format) {
+        var writer = switch (format) {
+            case CSV -> CSV_MAPPER.writerFor(UserPostResponse.class).with(CSV_SCHEMA);
+            case NDJSON -> objectMapper.writerFor(UserPostResponse.class).withRootValueSeparator("\n");
+        };
+        return writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @RequiredArgsConstructor
+    public enum Format {
+        CSV(new MediaType("text", "csv"), ".csv"),
+        NDJSON(MediaType.APPLICATION_NDJSON, ".ndjson");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        public MediaType mediaType(boolean gzip) {
+            return gzip ? new MediaType("application", "gzip") : mediaType;
+        }
+
+        public String fileExtension(boolean gzip) {
+            return gzip ? extension + ".gz" : extension;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package academy.devdojo.user_service.service;
+
+import academy.devdojo.exception.EmailExistsException;
+import academy.devdojo.user_service.cache.UserCache;
+import academy.devdojo.user_service.cache.UserEmailIndex;
+import academy.devdojo.user_service.cache.UserSearchIndex;
+import academy.devdojo.user_service.config.UserBatchProperties;
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.mapper.UserMapper;
+import academy.devdojo.user_service.repository.UserRepository;
+import academy.devdojo.user_service.request.UserPostRequest;
+import academy.devdojo.user_service.response.UserBatchItemResponse;
+import academy.devdojo.user_service.response.UserBatchItemResponse.Status;
+import academy.devdojo.user_service.response.UserBatchPostResponse;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Profile("!reactive")
+public class UserImportService {
+    private final UserService service;
+    private final UserRepository repository;
+    private final UserMapper mapper;
+    private final Validator validator;
+    private final UserCache cache;
+    private final UserEmailIndex emailIndex;
+    private final UserSearchIndex searchIndex;
+    private final UserBatchProperties properties;
+
+    public UserBatchPostResponse importAll(Iterator<UserPostRequest> requests) {
+        return importAll(requests, Set.of());
+    }
+
+    /**
+     * Imports the users, rejecting emails reserved in the {@link UserEmailIndex} as existing unless they are in
+     * {@code ownReservations}, the emails the caller reserved for these very users.
+     */
+    public UserBatchPostResponse importAll(Iterator<UserPostRequest> requests, Set<String> ownReservations) {
+        var ownEmails = ownReservations.stream().map(UserImportService::normalize).collect(Collectors.toSet());
+        var items = new ArrayList<UserBatchItemResponse>();
+        var seenEmails = new HashSet<String>();
+        var chunk = new ArrayList<UserPostRequest>(properties.chunkSize());
+
+        while (requests.hasNext()) {
+            chunk.add(requests.next());
+            if (chunk.size() == properties.chunkSize()) {
+                items.addAll(importChunk(chunk, items.size(), seenEmails, ownEmails));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            items.addAll(importChunk(chunk, items.size(), seenEmails, ownEmails));
+        }
+
+        var created = (int) items.stream().filter(item -> item.getStatus() == Status.CREATED).count();
+        return new UserBatchPostResponse(created, items.size() - created, items);
+    }
+
+    private List<UserBatchItemResponse> importChunk(List<UserPostRequest> chunk, int offset, Set<String> seenEmails,
+                                                     Set<String> ownEmails) {
+        var results = new UserBatchItemResponse[chunk.size()];
+        var candidates = new LinkedHashMap<Integer, User>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            var request = chunk.get(i);
+            if (request == null) {
+                results[i] = new UserBatchItemResponse(offset + i, Status.INVALID, null, List.of("The user must not be null"));
+                continue;
+            }
+            var violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                results[i] = new UserBatchItemResponse(offset + i, Status.INVALID, null, messages(violations));
+            } else if (!seenEmails.add(normalize(request.getEmail()))) {
+                results[i] = emailExists(offset + i, request.getEmail());
+            } else {
+                candidates.put(i, mapper.toUser(request));
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            rejectExistingEmails(candidates, results, offset, ownEmails);
+            insert(candidates, results, offset, ownEmails);
+        }
+        return Arrays.asList(results);
+    }
+
+    private void rejectExistingEmails(Map<Integer, User> candidates, UserBatchItemResponse[] results, int offset,
+                                      Set<String> ownEmails) {
+        var emails = candidates.values().stream().map(User::getEmail).toList();
+        var existingEmails = repository.findEmailsByEmailIn(emails).stream()
+                .map(UserImportService::normalize)
+                .collect(Collectors.toSet());
+
+        candidates.entrySet().removeIf(candidate -> {
+            var email = candidate.getValue().getEmail();
+            var normalizedEmail = normalize(email);
+            var reservedByOthers = !ownEmails.contains(normalizedEmail) && emailIndex.isReserved(email);
+            if (!reservedByOthers && !existingEmails.contains(normalizedEmail)) {
+                return false;
+            }
+            results[candidate.getKey()] = emailExists(offset + candidate.getKey(), email);
+            return true;
+        });
+    }
+
+    private void insert(Map<Integer, User> candidates, UserBatchItemResponse[] results, int offset, Set<String> ownEmails) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        try {
+            service.insertAll(new ArrayList<>(candidates.values()));
+            candidates.forEach((i, user) -> {
+                cache.invalidate(user.getId());
+                emailIndex.put(user.getEmail());
+                searchIndex.index(user);
+                results[i] = new UserBatchItemResponse(offset + i, Status.CREATED, user.getId(), List.of());
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch insert of '{}' users was rejected, retrying them one by one", candidates.size());
+            candidates.forEach((i, user) -> results[i] = saveOne(offset + i, user, ownEmails));
+        }
+    }
+
+    private UserBatchItemResponse saveOne(int index, User user, Set<String> ownEmails) {
+        try {
+            var savedUser = ownEmails.contains(normalize(user.getEmail())) ? service.saveReserved(user) : service.save(user);
+            return new UserBatchItemResponse(index, Status.CREATED, savedUser.getId(), List.of());
+        } catch (EmailExistsException e) {
+            return emailExists(index, user.getEmail());
+        }
+    }
+
+    private static UserBatchItemResponse emailExists(int index, String email) {
+        return new UserBatchItemResponse(index, Status.EMAIL_EXISTS, null, List.of("E-mail %s already exists".formatted(email)));
+    }
+
+    private static List<String> messages(Set<ConstraintViolation<UserPostRequest>> violations) {
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().toList();
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,41 +2,172 @@ package academy.devdojo.user_service.service;
 
 import academy.devdojo.exception.EmailExistsException;
 import academy.devdojo.exception.NotFoundException;
+import academy.devdojo.user_service.cache.UserCache;
+import academy.devdojo.user_service.cache.UserEmailIndex;
+import academy.devdojo.user_service.cache.UserSearchIndex;
+import academy.devdojo.user_service.concurrency.UserReadCoalescer;
+import academy.devdojo.user_service.config.UserBatchProperties;
+import academy.devdojo.user_service.datasource.ReadYourWritesWindow;
 import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.domain.UserChange;
+import academy.devdojo.user_service.exception.PreconditionFailedException;
+import academy.devdojo.user_service.projection.UserSummary;
+import academy.devdojo.user_service.projection.UserWatermark;
+import academy.devdojo.user_service.repository.UserChangeRepository;
 import academy.devdojo.user_service.repository.UserRepository;
+import academy.devdojo.user_service.response.UserGetResponse;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "user.service", description = "UserService operations, tagged by method and exception", histogram = true)
+@Profile("!reactive")
 public class UserService {
     private final UserRepository repository;
+    private final UserCache cache;
+    private final UserEmailIndex emailIndex;
+    private final UserSearchIndex searchIndex;
+    private final UserChangeRepository changeRepository;
+    private final UserBatchProperties batchProperties;
+    private final UserReadCoalescer coalescer;
+    private final ReadYourWritesWindow readYourWrites;
 
-    public List<User> findAll(String name) {
-        return name == null ? repository.findAll() : repository.findByFirstNameIgnoreCase(name);
+    public List<UserGetResponse> findAll(String name) {
+        var limit = Limit.of(batchProperties.maxListedUsers() + 1);
+        return coalescer.findAll(name, key -> key == null ? repository.findAllResponses(limit) : repository.findResponsesByFirstNameIgnoreCase(key, limit));
+    }
+
+    public UserWatermark findWatermark() {
+        return changeRepository.findWatermark();
+    }
+
+    @Transactional(readOnly = true)
+    public List<UserSummary> findAllAfter(String name, Long after, int limit) {
+        return name == null
+                ? repository.findSummariesByIdGreaterThan(after, Limit.of(limit))
+                : repository.findSummariesByFirstNameIgnoreCaseAndIdGreaterThan(name, after, Limit.of(limit));
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(String name, Consumer<UserGetResponse> action) {
+        try (var users = name == null ? repository.streamAll() : repository.streamByFirstNameIgnoreCase(name)) {
+            users.forEach(action);
+        }
+    }
+
+    public List<User> search(String query, int limit) {
+        var ids = searchIndex.search(query, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        var usersById = repository.findAllById(ids).stream().collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.stream().map(usersById::get).filter(Objects::nonNull).toList();
     }
 
     public User findByIdOrThrowNotFound(Long id) {
-        return repository.findById(id).orElseThrow(() -> new NotFoundException("User not Found"));
+        return cache.findById(id, key -> coalescer.findById(key, repository::findById)).orElseThrow(() -> new NotFoundException("User not Found"));
+    }
+
+    /**
+     * Finds the users with the given ids, cached ones first and the rest in {@code IN} queries of at most
+     * {@code user-service.batch.lookup-chunk-size} ids. Ids without a user are left out of the result, which keeps
+     * the iteration order of {@code ids}.
+     */
+    public Map<Long, User> findAllById(Collection<Long> ids) {
+        var users = new LinkedHashMap<Long, User>();
+        cache.findAllById(ids, this::loadAllById).forEach((id, user) -> user.ifPresent(found -> users.put(id, found)));
+        return users;
     }
 
+    public long findVersionByIdOrThrowNotFound(Long id) {
+        return cache.findVersionById(id, repository::findVersionById).orElseThrow(() -> new NotFoundException("User not Found"));
+    }
 
+    @Transactional
     public User save(User userToSave) {
         assertEmailDoesNotExist(userToSave.getEmail());
-        return repository.save(userToSave);
+        return insert(userToSave);
+    }
+
+    /**
+     * Saves a user whose email the caller reserved in the {@link UserEmailIndex} itself, as the write-behind does for
+     * the users it drains; only the reservation check is skipped.
+     */
+    @Transactional
+    public User saveReserved(User userToSave) {
+        assertEmailIsFree(userToSave.getEmail());
+        return insert(userToSave);
+    }
+
+    private User insert(User userToSave) {
+        var savedUser = saveOrThrowEmailExists(userToSave);
+        changeRepository.save(UserChange.of(UserChange.Type.CREATED, savedUser));
+        readYourWrites.markWrite();
+        afterCommit(() -> {
+            cache.invalidate(savedUser.getId());
+            emailIndex.put(savedUser.getEmail());
+            searchIndex.index(savedUser);
+        });
+        return savedUser;
     }
 
+    @Transactional
     public void delete(Long id) {
-        var userToDelete = findByIdOrThrowNotFound(id);
-        repository.delete(userToDelete);
+        if (repository.removeById(id) == 0) {
+            throw new NotFoundException("User not Found");
+        }
+        changeRepository.scrubByUserId(id);
+        changeRepository.save(UserChange.deleted(id));
+        readYourWrites.markWrite();
+        afterCommit(() -> {
+            cache.invalidate(id);
+            searchIndex.remove(id);
+        });
     }
 
+    @Transactional
     public void update(User user) {
-        assertUserExists(user.getId());
-        assertEmailDoesNotExist(user.getEmail(), user.getId());
-        repository.save(user);
+        if (emailIndex.isReserved(user.getEmail())) {
+            throw new EmailExistsException(user.getEmail());
+        }
+        if (updateOrThrowEmailExists(user) == 0) {
+            if (user.getVersion() != null && repository.existsById(user.getId())) {
+                throw new PreconditionFailedException("User was modified since version %d".formatted(user.getVersion()));
+            }
+            throw new NotFoundException("User not Found");
+        }
+        changeRepository.save(UserChange.of(UserChange.Type.UPDATED, user));
+        readYourWrites.markWrite();
+        afterCommit(() -> {
+            cache.invalidate(user.getId());
+            emailIndex.put(user.getEmail());
+            searchIndex.index(user);
+        });
+    }
+
+    /**
+     * Inserts a chunk of already validated users, and their outbox rows, in one transaction. The caller updates the
+     * cache and the indexes once it commits.
+     */
+    @Transactional
+    public void insertAll(List<User> users) {
+        repository.insertAll(users);
+        changeRepository.insertAll(users.stream().map(user -> UserChange.of(UserChange.Type.CREATED, user)).toList());
+        readYourWrites.markWrite();
     }
 
     public void assertUserExists(Long id) {
@@ -44,14 +175,66 @@ public class UserService {
     }
 
     public void assertEmailDoesNotExist(String email) {
-        repository.findByEmail(email).ifPresent(s -> {
+        if (emailIndex.isReserved(email)) {
             throw new EmailExistsException(email);
-        });
+        }
+        assertEmailIsFree(email);
     }
 
-    public void assertEmailDoesNotExist(String email, Long id) {
-        repository.findByEmailAndIdNot(email, id).ifPresent(s -> {
+    private void assertEmailIsFree(String email) {
+        if (emailIndex.mightContain(email) && repository.existsByEmail(email)) {
             throw new EmailExistsException(email);
+        }
+    }
+
+    private User saveOrThrowEmailExists(User user) {
+        try {
+            return repository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new EmailExistsException(user.getEmail());
+        }
+    }
+
+    private int updateOrThrowEmailExists(User user) {
+        try {
+            return user.getVersion() == null
+                    ? repository.updateById(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail())
+                    : repository.updateByIdAndVersion(user.getId(), user.getVersion(), user.getFirstName(), user.getLastName(), user.getEmail());
+        } catch (DataIntegrityViolationException e) {
+            throw new EmailExistsException(user.getEmail());
+        }
+    }
+
+    /**
+     * Runs {@code action} once the current transaction commits, or right away outside one, so a rollback never leaves
+     * the indexes pointing at a user that was not written, and no read before the commit can cache the old row again.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
         });
     }
-}
\ No newline at end of file
+
+    private Map<Long, User> loadAllById(Set<Long> ids) {
+        var users = new HashMap<Long, User>();
+        var chunk = new ArrayList<Long>(Math.min(ids.size(), batchProperties.lookupChunkSize()));
+        for (var id : ids) {
+            chunk.add(id);
+            if (chunk.size() == batchProperties.lookupChunkSize()) {
+                repository.findByIdIn(List.copyOf(chunk)).forEach(user -> users.put(user.getId(), user));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            repository.findByIdIn(chunk).forEach(user -> users.put(user.getId(), user));
+        }
+        return users;
+    }
+}
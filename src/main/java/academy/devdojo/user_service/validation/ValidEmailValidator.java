@@ -0,0 +1,90 @@
+package academy.devdojo.user_service.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Single pass, allocation free e-mail parser. It accepts what both Hibernate Validator's default e-mail check and
+ * the legacy {@code ^[\w-\.]+@([\w-]+\.)+[\w-]{2,4}$} regex accepted:
+ * <ul>
+ *     <li>a local part of at most 64 word characters, hyphens and dots, not starting or ending with a dot
+ *     and without consecutive dots;</li>
+ *     <li>a domain of at most 255 characters with at least two labels of word characters and hyphens, each label
+ *     at most 63 characters long and not starting or ending with a hyphen;</li>
+ *     <li>a last label of 2 to 4 characters.</li>
+ * </ul>
+ */
+public class ValidEmailValidator implements ConstraintValidator<ValidEmail, CharSequence> {
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_DOMAIN_LENGTH = 255;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final int MAX_LENGTH = MAX_LOCAL_PART_LENGTH + 1 + MAX_DOMAIN_LENGTH;
+
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        return value == null || isValidEmail(value);
+    }
+
+    public static boolean isValidEmail(CharSequence value) {
+        var length = value.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return false;
+        }
+
+        var at = localPartEnd(value, length);
+        if (at <= 0 || at > MAX_LOCAL_PART_LENGTH || length - at - 1 > MAX_DOMAIN_LENGTH) {
+            return false;
+        }
+        return isValidDomain(value, at + 1, length);
+    }
+
+    private static int localPartEnd(CharSequence value, int length) {
+        var previousIsDot = true;
+        for (int i = 0; i < length; i++) {
+            var c = value.charAt(i);
+            if (c == '@') {
+                return previousIsDot ? -1 : i;
+            }
+            if (c == '.') {
+                if (previousIsDot) {
+                    return -1;
+                }
+                previousIsDot = true;
+            } else if (isWordOrHyphen(c)) {
+                previousIsDot = false;
+            } else {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isValidDomain(CharSequence value, int start, int end) {
+        var labels = 0;
+        var labelStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i < end && value.charAt(i) != '.') {
+                if (!isWordOrHyphen(value.charAt(i))) {
+                    return false;
+                }
+                continue;
+            }
+
+            var labelLength = i - labelStart;
+            if (labelLength == 0 || labelLength > MAX_LABEL_LENGTH
+                    || value.charAt(labelStart) == '-' || value.charAt(i - 1) == '-') {
+                return false;
+            }
+            if (i == end) {
+                return labels > 0 && labelLength >= 2 && labelLength <= 4;
+            }
+            labels++;
+            labelStart = i + 1;
+        }
+        return false;
+    }
+
+    private static boolean isWordOrHyphen(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
+    }
+}
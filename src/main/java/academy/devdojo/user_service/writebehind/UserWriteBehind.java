@@ -0,0 +1,260 @@
+package academy.devdojo.user_service.writebehind;
+
+import academy.devdojo.exception.EmailExistsException;
+import academy.devdojo.user_service.cache.UserEmailIndex;
+import academy.devdojo.user_service.concurrency.UserBulkhead;
+import academy.devdojo.user_service.config.UserWriteBehindProperties;
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.projection.UserSummary;
+import academy.devdojo.user_service.repository.UserRepository;
+import academy.devdojo.user_service.request.UserPostRequest;
+import academy.devdojo.user_service.response.UserBatchItemResponse;
+import academy.devdojo.user_service.response.UserWriteGetResponse;
+import academy.devdojo.user_service.response.UserWriteGetResponse.Status;
+import academy.devdojo.user_service.service.UserImportService;
+import academy.devdojo.user_service.service.UserService;
+import academy.devdojo.user_service.writebehind.UserWriteLog.Entry;
+import academy.devdojo.user_service.writebehind.UserWriteLog.Position;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind of user creation. {@link #submit} checks the email, reserves it in the {@link UserEmailIndex} and appends
+ * the user to the {@link UserWriteLog}, returning a tracking id without touching the database for the insert. Every
+ * {@code user-service.write-behind.drain-interval} the log is drained in batches through {@link UserImportService},
+ * the same path as {@code POST v1/users/batch}, and the checkpoint moves past each batch once it commits. A batch is
+ * written under one {@link UserBulkhead} permit, waiting behind requests rather than failing.
+ * <p>
+ * On startup the entries after the checkpoint are replayed: their emails are reserved again and their status is
+ * pending until drained. A crash between a batch commit and its checkpoint writes that batch twice; the second time
+ * its emails exist, and for those replayed entries only, as for a batch retried after a failed drain, an email that
+ * belongs to a user with the same name is taken as already written. A first write whose email was taken in the
+ * meantime is reported as {@code EMAIL_EXISTS}, whatever the name. The status of writes drained before a restart is
+ * not kept. Never lazy, so the log is replayed on startup.
+ */
+@Component
+@Lazy(false)
+@Profile("!reactive")
+@ConditionalOnProperty("user-service.write-behind.enabled")
+@Slf4j
+public class UserWriteBehind implements SchedulingConfigurer, DisposableBean {
+    private final UserService service;
+    private final UserImportService importService;
+    private final UserRepository repository;
+    private final UserEmailIndex emailIndex;
+    private final UserBulkhead bulkhead;
+    private final UserWriteBehindProperties properties;
+    private final MeterRegistry registry;
+    private final UserWriteLog writeLog;
+    private final Map<UUID, UserWriteGetResponse> pending = new ConcurrentHashMap<>();
+    private final Set<UUID> replayed = ConcurrentHashMap.newKeySet();
+    private final Cache<UUID, UserWriteGetResponse> completed;
+    private Position checkpoint;
+
+    public UserWriteBehind(UserService service, UserImportService importService, UserRepository repository,
+                           UserEmailIndex emailIndex, UserBulkhead bulkhead, UserWriteBehindProperties properties,
+                           MeterRegistry registry) throws IOException {
+        this.service = service;
+        this.importService = importService;
+        this.repository = repository;
+        this.emailIndex = emailIndex;
+        this.bulkhead = bulkhead;
+        this.properties = properties;
+        this.registry = registry;
+        this.writeLog = new UserWriteLog(properties.directory(), (int) properties.segmentSize().toBytes(), properties.syncOnAppend());
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(properties.maximumStatuses())
+                .expireAfterWrite(properties.statusRetention())
+                .build();
+        this.checkpoint = writeLog.checkpoint();
+        Gauge.builder("user.write.behind.pending", pending, Map::size)
+                .description("Users accepted by the write-behind and not written to the database yet")
+                .register(registry);
+        replay();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::drain, properties.drainInterval());
+    }
+
+    /**
+     * @return the pending write of the user, once it is in the log
+     * @throws EmailExistsException when the email belongs to a user or to another pending write
+     */
+    public UserWriteGetResponse submit(User user) {
+        service.assertEmailDoesNotExist(user.getEmail());
+        if (!emailIndex.reserve(user.getEmail())) {
+            throw new EmailExistsException(user.getEmail());
+        }
+
+        var write = new UserWriteGetResponse(UUID.randomUUID(), Status.PENDING, null, List.of());
+        pending.put(write.getTrackingId(), write);
+        var appended = false;
+        try {
+            writeLog.append(new Entry(write.getTrackingId(), user.getFirstName(), user.getLastName(), user.getEmail()));
+            appended = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (!appended) {
+                pending.remove(write.getTrackingId());
+                emailIndex.release(user.getEmail());
+            }
+        }
+        return write;
+    }
+
+    public Optional<UserWriteGetResponse> findByTrackingId(UUID trackingId) {
+        return Optional.ofNullable(pending.get(trackingId)).or(() -> Optional.ofNullable(completed.getIfPresent(trackingId)));
+    }
+
+    public int drain() {
+        var drained = 0;
+        UserWriteLog.Batch batch;
+        do {
+            batch = writeLog.read(checkpoint, properties.batchSize());
+            var entries = batch.entries();
+            var committed = false;
+            try {
+                if (!entries.isEmpty()) {
+                    bulkhead.runInBackground(() -> write(entries));
+                }
+                commit(batch.end());
+                committed = true;
+            } finally {
+                if (!committed) {
+                    entries.forEach(entry -> replayed.add(entry.trackingId()));
+                }
+            }
+            drained += batch.entries().size();
+        } while (batch.entries().size() == properties.batchSize());
+
+        if (drained > 0) {
+            log.debug("Wrote '{}' users behind", drained);
+        }
+        return drained;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        writeLog.close();
+    }
+
+    private void replay() {
+        var position = checkpoint;
+        UserWriteLog.Batch batch;
+        do {
+            batch = writeLog.read(position, properties.batchSize());
+            for (var entry : batch.entries()) {
+                emailIndex.reserve(entry.email());
+                replayed.add(entry.trackingId());
+                pending.put(entry.trackingId(), new UserWriteGetResponse(entry.trackingId(), Status.PENDING, null, List.of()));
+            }
+            position = batch.end();
+        } while (!batch.entries().isEmpty());
+
+        if (!pending.isEmpty()) {
+            log.info("Replaying '{}' users from the write-behind log", pending.size());
+        }
+    }
+
+    /**
+     * The reservations are handed to the import as the batch's own, so they hold against every other write path until
+     * the outcome of each entry is known; the import has already indexed the created emails by then. When the import
+     * fails they stay, as the batch is retried on the next drain.
+     */
+    private void write(List<Entry> entries) {
+        var emails = entries.stream().map(Entry::email).collect(Collectors.toSet());
+        var items = importService.importAll(entries.stream().map(UserWriteBehind::toRequest).iterator(), emails).getItems();
+
+        var alreadyWritten = alreadyWritten(entries, items);
+        for (var item : items) {
+            var entry = entries.get(item.getIndex());
+            var id = alreadyWritten.get(entry.trackingId());
+            var write = id != null
+                    ? new UserWriteGetResponse(entry.trackingId(), Status.CREATED, id, List.of())
+                    : new UserWriteGetResponse(entry.trackingId(), Status.valueOf(item.getStatus().name()), item.getId(), item.getErrors());
+            completed.put(entry.trackingId(), write);
+            pending.remove(entry.trackingId());
+            replayed.remove(entry.trackingId());
+            Counter.builder("user.write.behind.writes")
+                    .description("Users drained from the write-behind log, tagged by outcome")
+                    .tag("status", write.getStatus().name())
+                    .register(registry)
+                    .increment();
+        }
+        emails.forEach(emailIndex::release);
+    }
+
+    /**
+     * @return the ids of the replayed users rejected for their email whose row matches the entry, by tracking id
+     */
+    private Map<UUID, Long> alreadyWritten(List<Entry> entries, List<UserBatchItemResponse> items) {
+        var rejected = items.stream()
+                .filter(item -> item.getStatus() == UserBatchItemResponse.Status.EMAIL_EXISTS)
+                .map(item -> entries.get(item.getIndex()))
+                .filter(entry -> replayed.contains(entry.trackingId()))
+                .toList();
+        if (rejected.isEmpty()) {
+            return Map.of();
+        }
+
+        var usersByEmail = repository.findSummariesByEmailIn(rejected.stream().map(Entry::email).toList()).stream()
+                .collect(Collectors.toMap(user -> normalize(user.email()), Function.identity(), (user, sameEmail) -> user));
+        var ids = new HashMap<UUID, Long>();
+        for (var entry : rejected) {
+            var user = usersByEmail.get(normalize(entry.email()));
+            if (user != null && isSameUser(user, entry)) {
+                ids.put(entry.trackingId(), user.id());
+            }
+        }
+        return ids;
+    }
+
+    private void commit(Position position) {
+        if (position.equals(checkpoint)) {
+            return;
+        }
+        try {
+            writeLog.commit(position);
+            checkpoint = position;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isSameUser(UserSummary user, Entry entry) {
+        return user.firstName().equals(entry.firstName()) && user.lastName().equals(entry.lastName());
+    }
+
+    private static UserPostRequest toRequest(Entry entry) {
+        var request = new UserPostRequest();
+        request.setFirstName(entry.firstName());
+        request.setLastName(entry.lastName());
+        request.setEmail(entry.email());
+        return request;
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
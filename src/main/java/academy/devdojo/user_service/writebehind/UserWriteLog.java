@@ -0,0 +1,267 @@
+package academy.devdojo.user_service.writebehind;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only log of the users accepted by {@link UserWriteBehind}, kept in memory-mapped segment files of a fixed
+ * size. A record is the length of its body, a CRC32C of the body and the body. A record whose checksum does not match
+ * was being written when the process died, so it ends the log and is wiped when the log is opened again; it was never
+ * acknowledged, since {@link #append} returns only once the record is written. The position up to which records were
+ * written to the database is kept in a checkpoint file, and segments before it are deleted.
+ * <p>
+ * Appends are serialized; {@link #read} and {@link #commit} are meant for a single drainer thread.
+ */
+@Slf4j
+public class UserWriteLog implements Closeable {
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnAppend;
+    private final FileChannel checkpointChannel;
+    private final NavigableMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+    private volatile Position checkpoint;
+    private volatile Position end;
+
+    public UserWriteLog(Path directory, int segmentSize, boolean syncOnAppend) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.syncOnAppend = syncOnAppend;
+        this.checkpointChannel = FileChannel.open(directory.resolve("checkpoint"), CREATE, READ, WRITE);
+        this.checkpoint = readCheckpoint();
+        for (var segment : segmentIds()) {
+            if (segment < checkpoint.segment()) {
+                Files.delete(segmentPath(segment));
+            } else {
+                segments.put(segment, map(segment));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(checkpoint.segment(), map(checkpoint.segment()));
+        }
+        this.end = recover();
+    }
+
+    /**
+     * Writes the entry, and forces it to disk unless {@code sync-on-append} is off.
+     *
+     * @return the position right after the entry
+     */
+    public synchronized Position append(Entry entry) throws IOException {
+        var body = entry.toBytes();
+        var recordSize = HEADER_SIZE + body.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("A record of %d bytes does not fit in a segment of %d bytes".formatted(recordSize, segmentSize));
+        }
+
+        var position = end;
+        var segment = segments.get(position.segment());
+        if (position.offset() + recordSize > segment.capacity()) {
+            position = new Position(position.segment() + 1, 0);
+            segment = map(position.segment());
+            segments.put(position.segment(), segment);
+        }
+
+        var crc = new CRC32C();
+        crc.update(body);
+        segment.put(position.offset() + HEADER_SIZE, body);
+        segment.putInt(position.offset() + Integer.BYTES, (int) crc.getValue());
+        segment.putInt(position.offset(), body.length);
+        if (syncOnAppend) {
+            segment.force(position.offset(), recordSize);
+        }
+        end = new Position(position.segment(), position.offset() + recordSize);
+        return end;
+    }
+
+    /**
+     * Reads up to {@code max} entries appended after {@code from}.
+     */
+    public Batch read(Position from, int max) {
+        var entries = new ArrayList<Entry>();
+        var position = from;
+        var end = this.end;
+        while (entries.size() < max && position.compareTo(end) < 0) {
+            var segment = segments.get(position.segment());
+            var length = bodyLength(segment, position.offset());
+            if (length < 0) {
+                position = new Position(segments.higherKey(position.segment()), 0);
+                continue;
+            }
+            entries.add(Entry.of(segment.slice(position.offset() + HEADER_SIZE, length)));
+            position = new Position(position.segment(), position.offset() + HEADER_SIZE + length);
+        }
+        return new Batch(entries, position);
+    }
+
+    /**
+     * Records that everything before {@code position} is in the database, and deletes the segments left behind.
+     */
+    public void commit(Position position) throws IOException {
+        checkpointChannel.write(ByteBuffer.allocate(Long.BYTES + Integer.BYTES)
+                .putLong(position.segment())
+                .putInt(position.offset())
+                .flip(), 0);
+        checkpointChannel.force(false);
+        checkpoint = position;
+
+        for (var segment : List.copyOf(segments.headMap(position.segment()).keySet())) {
+            segments.remove(segment);
+            Files.deleteIfExists(segmentPath(segment));
+        }
+    }
+
+    public Position checkpoint() {
+        return checkpoint;
+    }
+
+    public Position end() {
+        return end;
+    }
+
+    @Override
+    public void close() throws IOException {
+        checkpointChannel.close();
+    }
+
+    private Position readCheckpoint() throws IOException {
+        var buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+        if (checkpointChannel.read(buffer, 0) == buffer.capacity()) {
+            buffer.flip();
+            return new Position(buffer.getLong(), buffer.getInt());
+        }
+        return new Position(segmentIds().stream().findFirst().orElse(0L), 0);
+    }
+
+    /**
+     * Walks the records after the checkpoint to find where the next one goes, wiping a torn record at the end.
+     */
+    private Position recover() throws IOException {
+        var position = checkpoint;
+        while (true) {
+            var segment = segments.get(position.segment());
+            var length = bodyLength(segment, position.offset());
+            if (length >= 0) {
+                position = new Position(position.segment(), position.offset() + HEADER_SIZE + length);
+                continue;
+            }
+            var nextSegment = segments.higherKey(position.segment());
+            if (nextSegment == null) {
+                break;
+            }
+            position = new Position(nextSegment, 0);
+        }
+
+        var segment = segments.get(position.segment());
+        if (!isZero(segment, position.offset())) {
+            log.warn("Wiping a torn record at '{}' of the write-behind log", position);
+            segment.put(position.offset(), new byte[segment.capacity() - position.offset()]);
+            segment.force();
+        }
+        return position;
+    }
+
+    private static boolean isZero(ByteBuffer segment, int from) {
+        for (int i = from; i < segment.capacity(); i++) {
+            if (segment.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the body length of the complete record at {@code offset}, or -1 when there is none
+     */
+    private static int bodyLength(ByteBuffer segment, int offset) {
+        if (offset + HEADER_SIZE > segment.capacity()) {
+            return -1;
+        }
+        var length = segment.getInt(offset);
+        if (length <= 0 || length > segment.capacity() - offset - HEADER_SIZE) {
+            return -1;
+        }
+        var crc = new CRC32C();
+        crc.update(segment.slice(offset + HEADER_SIZE, length));
+        return (int) crc.getValue() == segment.getInt(offset + Integer.BYTES) ? length : -1;
+    }
+
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (var channel = FileChannel.open(segmentPath(segment), CREATE, READ, WRITE)) {
+            var size = channel.size() > 0 ? channel.size() : segmentSize;
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private List<Long> segmentIds() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted(Comparator.naturalOrder())
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve("%020d%s".formatted(segment, SEGMENT_SUFFIX));
+    }
+
+    public record Position(long segment, int offset) implements Comparable<Position> {
+        private static final Comparator<Position> ORDER = Comparator.comparingLong(Position::segment).thenComparingInt(Position::offset);
+
+        @Override
+        public int compareTo(Position other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    public record Batch(List<Entry> entries, Position end) {
+    }
+
+    public record Entry(UUID trackingId, String firstName, String lastName, String email) {
+
+        private byte[] toBytes() {
+            var firstName = this.firstName.getBytes(StandardCharsets.UTF_8);
+            var lastName = this.lastName.getBytes(StandardCharsets.UTF_8);
+            var email = this.email.getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(2 * Long.BYTES + 3 * Integer.BYTES + firstName.length + lastName.length + email.length)
+                    .putLong(trackingId.getMostSignificantBits())
+                    .putLong(trackingId.getLeastSignificantBits())
+                    .putInt(firstName.length).put(firstName)
+                    .putInt(lastName.length).put(lastName)
+                    .putInt(email.length).put(email)
+                    .array();
+        }
+
+        private static Entry of(ByteBuffer body) {
+            return new Entry(new UUID(body.getLong(), body.getLong()), string(body), string(body), string(body));
+        }
+
+        private static String string(ByteBuffer body) {
+            var bytes = new byte[body.getInt()];
+            body.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
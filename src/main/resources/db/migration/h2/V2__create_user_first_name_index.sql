@@ -0,0 +1,2 @@
+-- H2 has no functional indexes, the MySQL migration indexes upper(first_name)
+create index idx_user_first_name on `user` (first_name);
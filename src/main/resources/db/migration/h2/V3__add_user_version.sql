@@ -0,0 +1,2 @@
+-- Optimistic locking and the ETags of v1/users, existing rows start at version 0
+alter table `user` add column version bigint not null default 0;
@@ -0,0 +1,4 @@
+-- Retention of the outbox: rows are pruned by write time, and a user's earlier rows are scrubbed when it is deleted
+alter table user_change add column created_at timestamp(6) not null default current_timestamp(6);
+create index ix_user_change_created_at on user_change (created_at);
+create index ix_user_change_user_id on user_change (user_id);
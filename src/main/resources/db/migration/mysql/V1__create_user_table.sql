@@ -0,0 +1,9 @@
+create table if not exists `user`
+(
+    id         bigint       not null auto_increment,
+    email      varchar(255) not null,
+    first_name varchar(255) not null,
+    last_name  varchar(255) not null,
+    primary key (id),
+    constraint uk_user_email unique (email)
+) engine = InnoDB;
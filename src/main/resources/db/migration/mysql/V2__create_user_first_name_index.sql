@@ -0,0 +1,2 @@
+-- findByFirstNameIgnoreCase and the name filtered keyset/stream queries compare upper(first_name)
+create index idx_user_first_name_upper on `user` ((upper(first_name)));
@@ -0,0 +1,13 @@
+-- Transactional outbox of user changes, change_offset is assigned by the relay when the change is published
+create table if not exists user_change
+(
+    id            bigint       not null auto_increment,
+    change_offset bigint,
+    type          varchar(16)  not null,
+    user_id       bigint       not null,
+    first_name    varchar(255),
+    last_name     varchar(255),
+    email         varchar(255),
+    primary key (id),
+    constraint uk_user_change_offset unique (change_offset)
+) engine = InnoDB;
@@ -0,0 +1,77 @@
+package academy.devdojo.user_service.cache;
+
+import academy.devdojo.user_service.concurrency.UserBulkhead;
+import academy.devdojo.user_service.config.UserConcurrencyProperties;
+import academy.devdojo.user_service.config.UserOutboxProperties;
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.domain.UserChange;
+import academy.devdojo.user_service.projection.UserSummary;
+import academy.devdojo.user_service.repository.UserChangeRepository;
+import academy.devdojo.user_service.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@ExtendWith(MockitoExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class UserSearchIndexFeedTest {
+    @Mock
+    private UserRepository repository;
+    @Mock
+    private UserChangeRepository changeRepository;
+    private UserSearchIndex searchIndex;
+    private UserSearchIndexFeed feed;
+
+    @BeforeEach
+    void init() {
+        var bulkhead = new UserBulkhead(new UserConcurrencyProperties(1, Duration.ofMillis(20), Duration.ofSeconds(1), false,
+                Duration.ofMillis(20), Duration.ofSeconds(1)), new SimpleMeterRegistry());
+        var properties = new UserOutboxProperties(false, Duration.ofMillis(200), 2, Duration.ofSeconds(30),
+                Duration.ofMinutes(30), Duration.ofMillis(500), Duration.ofDays(7), Duration.ofHours(1));
+        searchIndex = new UserSearchIndex();
+        feed = new UserSearchIndexFeed(searchIndex, repository, changeRepository, bulkhead, properties);
+    }
+
+    @Test
+    @DisplayName("follow does nothing until the index is warmed up")
+    @Order(1)
+    void follow_AppliesNothing_WhenIndexIsNotWarmedUp() {
+        Assertions.assertThat(feed.follow()).isZero();
+        BDDMockito.then(changeRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("follow applies the changes published after the warm-up offset, batch after batch, in offset order")
+    @Order(2)
+    void follow_AppliesChangesFromOtherInstances_WhenTheyArePublished() {
+        var ana = User.builder().id(1L).firstName("Ana").lastName("Oliveira").email("ana@email.com").build();
+        var bruno = User.builder().id(2L).firstName("Bruno").lastName("Lima").email("bruno@email.com").build();
+        BDDMockito.when(changeRepository.findMaxChangeOffset()).thenReturn(Optional.of(10L));
+        BDDMockito.when(repository.streamAllForSearch())
+                .thenReturn(Stream.of(new UserSummary(1L, "Ana", "Oliveira", "ana@email.com")));
+        BDDMockito.when(changeRepository.findByChangeOffsetGreaterThanOrderByChangeOffset(10L, Limit.of(2))).thenReturn(List.of(
+                UserChange.of(UserChange.Type.UPDATED, ana.withFirstName("Mariana")).withChangeOffset(11L),
+                UserChange.of(UserChange.Type.CREATED, bruno).withChangeOffset(12L)));
+        BDDMockito.when(changeRepository.findByChangeOffsetGreaterThanOrderByChangeOffset(12L, Limit.of(2))).thenReturn(List.of(
+                UserChange.deleted(1L).withChangeOffset(13L)));
+
+        feed.warmUp();
+        Assertions.assertThat(searchIndex.search("ana", 10)).containsExactly(1L);
+
+        Assertions.assertThat(feed.follow()).isEqualTo(3);
+        Assertions.assertThat(searchIndex.search("ana", 10)).isEmpty();
+        Assertions.assertThat(searchIndex.search("mari", 10)).isEmpty();
+        Assertions.assertThat(searchIndex.search("bruno", 10)).containsExactly(2L);
+        Assertions.assertThat(searchIndex.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,75 @@
+package academy.devdojo.user_service.cache;
+
+import academy.devdojo.user_service.commons.UserUtils;
+import academy.devdojo.user_service.domain.User;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class UserSearchIndexTest {
+    private UserSearchIndex searchIndex;
+    private List<User> usersList;
+
+    @BeforeEach
+    void init() {
+        searchIndex = new UserSearchIndex();
+        usersList = new UserUtils().newUserList();
+        usersList.forEach(searchIndex::index);
+    }
+
+    @Test
+    @DisplayName("search returns users whose first name, last name or e-mail start with the query")
+    @Order(1)
+    void search_ReturnsMatchingUsers_WhenPrefixMatches() {
+        var ana = usersList.getFirst();
+        var julia = usersList.get(2);
+        var camila = usersList.get(4);
+
+        Assertions.assertThat(searchIndex.search("ca", 10)).containsExactly(camila.getId());
+        Assertions.assertThat(searchIndex.search("go", 10)).containsExactly(julia.getId());
+        Assertions.assertThat(searchIndex.search("ANAOLI", 10)).containsExactly(ana.getId());
+    }
+
+    @Test
+    @DisplayName("search ranks exact matches first and ignores case and accents")
+    @Order(2)
+    void search_RanksExactMatchesFirst_WhenQueryHasAccents() {
+        var ana = usersList.getFirst();
+        var anabela = User.builder().id(8L).firstName("Anabela").lastName("Souza").email("anabela@email.com").build();
+        searchIndex.index(anabela);
+
+        Assertions.assertThat(searchIndex.search("Âna", 10)).containsExactly(ana.getId(), anabela.getId());
+        Assertions.assertThat(searchIndex.search("ana souza", 10)).containsExactly(anabela.getId());
+        Assertions.assertThat(searchIndex.search("ana", 1)).containsExactly(ana.getId());
+    }
+
+    @Test
+    @DisplayName("index replaces old terms and remove drops the user")
+    @Order(3)
+    void index_ReplacesOldTerms_WhenUserIsUpdated() {
+        var ana = usersList.getFirst();
+
+        searchIndex.index(ana.withFirstName("Mariana"));
+        Assertions.assertThat(searchIndex.search("ana", 10)).containsExactly(ana.getId());
+        Assertions.assertThat(searchIndex.search("mari", 10)).containsExactly(ana.getId());
+
+        searchIndex.remove(ana.getId());
+        Assertions.assertThat(searchIndex.search("mari", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("search finds a multi-term match past the scan cap of a common first term")
+    @Order(4)
+    void search_ReturnsMatch_WhenFirstTermIsCommon() {
+        LongStream.rangeClosed(100, 1100)
+                .mapToObj(id -> User.builder().id(id).firstName("Ana").lastName("Souza").email("ana%d@email.com".formatted(id)).build())
+                .forEach(searchIndex::index);
+        var oliveira = User.builder().id(2000L).firstName("Ana").lastName("Oliveira").email("zz@email.com").build();
+        searchIndex.index(oliveira);
+
+        Assertions.assertThat(searchIndex.search("ana oliveira", 5)).contains(oliveira.getId());
+    }
+}
@@ -0,0 +1,165 @@
+package academy.devdojo.user_service.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class SingleFlightTest {
+    private static final int CALLERS = 20;
+    private SimpleMeterRegistry registry;
+    private AtomicLong generation;
+
+    @BeforeEach
+    void init() {
+        registry = new SimpleMeterRegistry();
+        generation = new AtomicLong();
+    }
+
+    @Test
+    @DisplayName("execute runs the loader once for concurrent calls with the same key and shares the result")
+    @Order(1)
+    void execute_RunsLoaderOnce_WhenCallsOverlap() throws Exception {
+        var flight = newSingleFlight(Duration.ofSeconds(5));
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var loads = new AtomicInteger();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var leader = executor.submit(() -> flight.execute(1L, id -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "user " + id;
+            }));
+            loading.await(5, TimeUnit.SECONDS);
+
+            var followers = new ArrayList<Future<String>>();
+            for (int i = 0; i < CALLERS; i++) {
+                followers.add(executor.submit(() -> flight.execute(1L, id -> "reloaded " + id)));
+            }
+            awaitFollowers(CALLERS);
+            release.countDown();
+
+            Assertions.assertThat(leader.get()).isEqualTo("user 1");
+            for (var follower : followers) {
+                Assertions.assertThat(follower.get()).isEqualTo("user 1");
+            }
+        }
+
+        Assertions.assertThat(loads).hasValue(1);
+        Assertions.assertThat(calls("leader")).isEqualTo(1);
+        Assertions.assertThat(calls("follower")).isEqualTo(CALLERS);
+    }
+
+    @Test
+    @DisplayName("execute runs the loader itself when the running call takes longer than the wait budget")
+    @Order(2)
+    void execute_RunsLoaderItself_WhenWaitRunsOut() throws Exception {
+        var flight = newSingleFlight(Duration.ofMillis(20));
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> flight.execute(1L, id -> {
+                loading.countDown();
+                await(release);
+                return "slow";
+            }));
+            loading.await(5, TimeUnit.SECONDS);
+
+            Assertions.assertThat(flight.execute(1L, id -> "fast")).isEqualTo("fast");
+            release.countDown();
+        }
+
+        Assertions.assertThat(calls("timeout")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("execute does not join a call started before the generation changed")
+    @Order(3)
+    void execute_StartsNewCall_WhenRunningCallIsStale() throws Exception {
+        var flight = newSingleFlight(Duration.ofSeconds(5));
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var stale = executor.submit(() -> flight.execute(1L, id -> {
+                loading.countDown();
+                await(release);
+                return "before write";
+            }));
+            loading.await(5, TimeUnit.SECONDS);
+            generation.incrementAndGet();
+
+            Assertions.assertThat(flight.execute(1L, id -> "after write")).isEqualTo("after write");
+            release.countDown();
+            Assertions.assertThat(stale.get()).isEqualTo("before write");
+        }
+
+        Assertions.assertThat(calls("leader")).isEqualTo(2);
+        Assertions.assertThat(calls("follower")).isZero();
+    }
+
+    @Test
+    @DisplayName("execute rethrows the leader's exception to the callers that joined it")
+    @Order(4)
+    void execute_RethrowsLeaderException_WhenLoaderFails() throws Exception {
+        var flight = newSingleFlight(Duration.ofSeconds(5));
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> flight.execute(1L, id -> {
+                loading.countDown();
+                await(release);
+                throw new IllegalStateException("database is down");
+            }));
+            loading.await(5, TimeUnit.SECONDS);
+
+            var follower = executor.submit(() -> flight.execute(1L, id -> "reloaded"));
+            awaitFollowers(1);
+            release.countDown();
+
+            Assertions.assertThatException()
+                    .isThrownBy(follower::get)
+                    .havingCause()
+                    .isInstanceOf(IllegalStateException.class)
+                    .withMessage("database is down");
+        }
+
+        Assertions.assertThat(registry.get("user.coalescing.in.flight").gauge().value()).isZero();
+    }
+
+    private SingleFlight<Long, String> newSingleFlight(Duration maxWait) {
+        var flight = new SingleFlight<Long, String>("test", maxWait, generation::get);
+        flight.bindTo(registry);
+        return flight;
+    }
+
+    private double calls(String role) {
+        return registry.get("user.coalescing.calls").tag("role", role).functionCounter().count();
+    }
+
+    private static void awaitFollowers(int followers) throws InterruptedException {
+        // Followers block on the running call without a hook to wait on, give them time to reach it
+        Thread.sleep(200L + followers * 10L);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package academy.devdojo.user_service.concurrency;
+
+import academy.devdojo.user_service.config.UserConcurrencyProperties;
+import academy.devdojo.user_service.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class UserBulkheadTest {
+    private SimpleMeterRegistry registry;
+    private UserBulkhead bulkhead;
+
+    @BeforeEach
+    void init() {
+        registry = new SimpleMeterRegistry();
+        var properties = new UserConcurrencyProperties(1, Duration.ofMillis(20), Duration.ofMillis(1500), false, Duration.ofMillis(20), Duration.ofSeconds(1));
+        bulkhead = new UserBulkhead(properties, registry);
+    }
+
+    @Test
+    @DisplayName("limit rejects with 503 and Retry-After when no permit is freed within the wait budget")
+    @Order(1)
+    void limit_ThrowsServiceBusyException_WhenPermitsAreExhausted() throws Throwable {
+        var holding = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var blockingJoinPoint = Mockito.mock(ProceedingJoinPoint.class);
+        BDDMockito.when(blockingJoinPoint.proceed()).thenAnswer(invocation -> {
+            holding.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> {
+                try {
+                    return bulkhead.limit(blockingJoinPoint);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            holding.await(5, TimeUnit.SECONDS);
+
+            Assertions.assertThatException()
+                    .isThrownBy(() -> bulkhead.limit(Mockito.mock(ProceedingJoinPoint.class)))
+                    .isInstanceOfSatisfying(ServiceBusyException.class, e -> {
+                        Assertions.assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+                        Assertions.assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+                    });
+            release.countDown();
+        }
+
+        Assertions.assertThat(registry.get("user.bulkhead.rejected").counter().count()).isEqualTo(1);
+        Assertions.assertThat(registry.get("user.bulkhead.available").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("limit does not take a second permit when the thread already holds one")
+    @Order(2)
+    void limit_ProceedsWithoutNewPermit_WhenThreadAlreadyHoldsOne() throws Throwable {
+        var innerJoinPoint = Mockito.mock(ProceedingJoinPoint.class);
+        BDDMockito.when(innerJoinPoint.proceed()).thenReturn("user");
+        var outerJoinPoint = Mockito.mock(ProceedingJoinPoint.class);
+        BDDMockito.when(outerJoinPoint.proceed()).thenAnswer(invocation -> bulkhead.limit(innerJoinPoint));
+
+        Assertions.assertThat(bulkhead.limit(outerJoinPoint)).isEqualTo("user");
+        Assertions.assertThat(registry.get("user.bulkhead.available").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("callInBackground waits for a permit past the wait budget instead of rejecting")
+    @Order(3)
+    void callInBackground_WaitsForPermit_WhenPermitsAreExhausted() throws Throwable {
+        var holding = new CountDownLatch(1);
+        var blockingJoinPoint = Mockito.mock(ProceedingJoinPoint.class);
+        BDDMockito.when(blockingJoinPoint.proceed()).thenAnswer(invocation -> {
+            holding.countDown();
+            Thread.sleep(200);
+            return null;
+        });
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> {
+                try {
+                    return bulkhead.limit(blockingJoinPoint);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            holding.await(5, TimeUnit.SECONDS);
+
+            Assertions.assertThat(bulkhead.callInBackground(() -> "relayed")).isEqualTo("relayed");
+        }
+
+        Assertions.assertThat(registry.get("user.bulkhead.rejected").counter().count()).isZero();
+        Assertions.assertThat(registry.get("user.bulkhead.available").gauge().value()).isEqualTo(1);
+    }
+}
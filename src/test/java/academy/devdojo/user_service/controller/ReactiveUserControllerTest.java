@@ -0,0 +1,200 @@
+package academy.devdojo.user_service.controller;
+
+import academy.devdojo.user_service.commons.FileUtils;
+import academy.devdojo.user_service.response.UserPostResponse;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Optional;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReactiveUserControllerTest {
+    private static final String URL = "/v1/users";
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private FileUtils fileUtils;
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    @DisplayName("POST v1/users creates a user")
+    @Order(1)
+    void save_CreatesUser_WhenSuccessful() throws Exception {
+        var request = fileUtils.readResourceFile("user/post-request-user-200.json");
+        var response = fileUtils.readResourceFile("user/post-response-user-201.json");
+
+        webTestClient.post().uri(URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().json(response);
+    }
+
+    @Test
+    @DisplayName("POST v1/users returns 400 when email already exists")
+    @Order(2)
+    void save_ReturnsBadRequest_WhenEmailExists() throws Exception {
+        var request = fileUtils.readResourceFile("user/post-request-user-200.json");
+
+        webTestClient.post().uri(URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("GET v1/users returns the users found by name")
+    @Order(3)
+    void findAll_ReturnsUsersInList_WhenNameIsFound() {
+        webTestClient.get().uri(uriBuilder -> uriBuilder.path(URL).queryParam("name", "letícia").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].email").isEqualTo("leticiaribeiro@email.com");
+    }
+
+    @Test
+    @DisplayName("GET v1/users streams users as NDJSON when requested")
+    @Order(4)
+    void streamAll_StreamsUsers_WhenNdjsonIsAccepted() {
+        webTestClient.get().uri(URL)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .isEqualTo("{\"name\":\"Letícia\",\"second name\":\"Ribeiro\",\"email\":\"leticiaribeiro@email.com\"}\n");
+    }
+
+    @Test
+    @DisplayName("GET v1/users?limit=1 returns a page with the next cursor when it is full")
+    @Order(5)
+    void findAllAfter_ReturnsPageWithNext_WhenPageIsFull() {
+        webTestClient.get().uri(URL + "?limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.users.length()").isEqualTo(1)
+                .jsonPath("$.next").isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("GET v1/users/99 throws NotFound 404 when user is not found")
+    @Order(6)
+    void findById_ThrowsNotFound_WhenUserIsNotFound() throws Exception {
+        var response = fileUtils.readResourceFile("user/get-user-by-id-404.json");
+
+        webTestClient.get().uri(URL + "/{id}", 99)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().json(response);
+    }
+
+    @Test
+    @DisplayName("PUT v1/users updates a user")
+    @Order(7)
+    void update_UpdatesUser_WhenSuccessful() throws Exception {
+        var request = fileUtils.readResourceFile("user/put-request-user-200.json");
+
+        webTestClient.put().uri(URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient.get().uri(URL + "/{id}", 1)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.email").isEqualTo("anadesigner@email.com");
+    }
+
+    @Test
+    @DisplayName("PUT v1/users returns 412 when If-Match is not the version sent as ETag by GET v1/users/{id}")
+    @Order(8)
+    void update_ReturnsPreconditionFailed_WhenIfMatchIsStale() throws Exception {
+        var request = fileUtils.readResourceFile("user/put-request-user-200.json");
+
+        webTestClient.get().uri(URL + "/{id}", 1)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+
+        webTestClient.put().uri(URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        webTestClient.put().uri(URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    @DisplayName("DELETE v1/users/1 removes a user and returns 404 afterwards")
+    @Order(9)
+    void delete_RemovesUser_WhenSuccessful() throws Exception {
+        var response = fileUtils.readResourceFile("user/delete-user-by-id-404.json");
+
+        webTestClient.delete().uri(URL + "/{id}", 1)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient.delete().uri(URL + "/{id}", 1)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().json(response);
+    }
+
+    @Test
+    @DisplayName("DELETE v1/users/{id} writes no outbox row and clears the names and email of the ones left for the user")
+    @Order(10)
+    void delete_ScrubsChangesAndWritesNone_WhenSuccessful() throws Exception {
+        var request = fileUtils.readResourceFile("user/post-request-user-200.json");
+
+        var id = webTestClient.post().uri(URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(UserPostResponse.class)
+                .returnResult().getResponseBody().getId();
+
+        databaseClient.sql("insert into user_change (type, user_id, first_name, last_name, email) values ('CREATED', :userId, 'Ana', 'Silva', 'ana@email.com')")
+                .bind("userId", id)
+                .then()
+                .block();
+
+        webTestClient.delete().uri(URL + "/{id}", id)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        var emails = databaseClient.sql("select email from user_change")
+                .map(row -> Optional.ofNullable(row.get("email", String.class)))
+                .all()
+                .collectList()
+                .block();
+        Assertions.assertThat(emails).containsExactly(Optional.empty());
+    }
+}
@@ -1,22 +1,45 @@
 package academy.devdojo.user_service.controller;
 
 import academy.devdojo.exception.NotFoundException;
+import academy.devdojo.user_service.cache.UserEmailIndex;
+import academy.devdojo.user_service.cache.UserSearchIndex;
 import academy.devdojo.user_service.commons.FileUtils;
 import academy.devdojo.user_service.commons.UserUtils;
+import academy.devdojo.user_service.config.UserBatchProperties;
 import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.domain.UserChange;
+import academy.devdojo.user_service.projection.UserWatermark;
+import academy.devdojo.user_service.repository.UserChangeRepository;
 import academy.devdojo.user_service.repository.UserRepository;
+import academy.devdojo.user_service.response.UserExportGetResponse;
+import academy.devdojo.user_service.response.UserGetResponse;
+import academy.devdojo.user_service.response.UserPostResponse;
+import academy.devdojo.user_service.service.UserExportJobs;
+import academy.devdojo.user_service.service.UserExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.assertj.core.api.Assertions;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
@@ -25,9 +48,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 @WebMvcTest(controllers = UserController.class)
+@ImportAutoConfiguration({MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class})
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 @ComponentScan(basePackages = "academy.devdojo")
 class UserControllerTest {
@@ -36,11 +64,21 @@ class UserControllerTest {
     private MockMvc mockMvc;
     @MockBean
     private UserRepository repository;
+    @MockBean
+    private UserChangeRepository changeRepository;
+    @MockBean
+    private UserExportJobs exportJobs;
     private List<User> usersList;
     @Autowired
     private FileUtils fileUtils;
     @Autowired
     private UserUtils userUtils;
+    @Autowired
+    private UserSearchIndex searchIndex;
+    @Autowired
+    private UserEmailIndex emailIndex;
+    @Autowired
+    private UserBatchProperties batchProperties;
 
     @BeforeEach
     void init() {
@@ -51,12 +89,14 @@ class UserControllerTest {
     @DisplayName("GET v1/users returns a list with all users when argument is null")
     @Order(1)
     void findAll_ReturnsAllUsers_WhenArgumentIsNull() throws Exception {
-        BDDMockito.when(repository.findAll()).thenReturn(usersList);
+        BDDMockito.when(changeRepository.findWatermark()).thenReturn(new UserWatermark(6L, 0L));
+        BDDMockito.when(repository.findAllResponses(ArgumentMatchers.any())).thenReturn(userUtils.newUserGetResponseList());
         var response = fileUtils.readResourceFile("user/get-user-null-name-200.json");
 
         mockMvc.perform(MockMvcRequestBuilders.get(URL))
                 .andDo(MockMvcResultHandlers.print())
                 .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "W/\"6-0\""))
                 .andExpect(MockMvcResultMatchers.content().json(response));
     }
 
@@ -66,9 +106,10 @@ class UserControllerTest {
     void findAll_ReturnsUsersInList_WhenNameIsFound() throws Exception {
         var response = fileUtils.readResourceFile("user/get-user-ana-name-200.json");
         var name = "Ana";
-        var ana = usersList.stream().filter(user -> user.getFirstName().equals(name)).findFirst().orElse(null);
+        var ana = userUtils.newUserGetResponseList().stream().filter(user -> user.getFirstName().equals(name)).findFirst().orElse(null);
 
-        BDDMockito.when(repository.findByFirstNameIgnoreCase(name)).thenReturn(Collections.singletonList(ana));
+        BDDMockito.when(changeRepository.findWatermark()).thenReturn(new UserWatermark(6L, 0L));
+        BDDMockito.when(repository.findResponsesByFirstNameIgnoreCase(ArgumentMatchers.eq(name), ArgumentMatchers.any())).thenReturn(Collections.singletonList(ana));
 
         mockMvc.perform(MockMvcRequestBuilders.get(URL).param("name", name))
                 .andDo(MockMvcResultHandlers.print())
@@ -83,6 +124,8 @@ class UserControllerTest {
         var response = fileUtils.readResourceFile("user/get-user-x-name-200.json");
         var name = "x";
 
+        BDDMockito.when(changeRepository.findWatermark()).thenReturn(new UserWatermark(null, 0L));
+
         mockMvc.perform(MockMvcRequestBuilders.get(URL).param("name", name))
                 .andDo(MockMvcResultHandlers.print())
                 .andExpect(MockMvcResultMatchers.status().isOk())
@@ -100,6 +143,7 @@ class UserControllerTest {
         mockMvc.perform(MockMvcRequestBuilders.get(URL + "/{id}", id))
                 .andDo(MockMvcResultHandlers.print())
                 .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"0\""))
                 .andExpect(MockMvcResultMatchers.content().json(response));
     }
 
@@ -125,9 +169,14 @@ class UserControllerTest {
     void save_CreatesUser_WhenSuccessful() throws Exception {
         var request = fileUtils.readResourceFile("user/post-request-user-200.json");
         var response = fileUtils.readResourceFile("user/post-response-user-201.json");
-        var userToSave = userUtils.newSavedUser();
+        var savedUser = userUtils.newSavedUser();
 
-        BDDMockito.when(repository.save(userToSave)).thenReturn(userToSave);
+        BDDMockito.when(repository.save(ArgumentMatchers.any(User.class))).thenAnswer(invocation -> {
+            User userToSave = invocation.getArgument(0);
+            userToSave.setId(savedUser.getId());
+            userToSave.setVersion(savedUser.getVersion());
+            return userToSave;
+        });
 
         mockMvc.perform(MockMvcRequestBuilders
                         .post(URL)
@@ -143,9 +192,8 @@ class UserControllerTest {
     @DisplayName("PUT v1/users updates a user")
     @Order(7)
     void update_UpdateUser_WhenSucccessful() throws Exception {
-        var id = 1L;
-
-        BDDMockito.when(repository.findById(id)).thenReturn(Optional.of(usersList.getFirst()));
+        BDDMockito.when(repository.updateById(ArgumentMatchers.eq(1L), ArgumentMatchers.anyString(), ArgumentMatchers.anyString(), ArgumentMatchers.anyString()))
+                .thenReturn(1);
 
         var request = fileUtils.readResourceFile("user/put-request-user-200.json");
 
@@ -180,7 +228,7 @@ class UserControllerTest {
     void delete_RemoveUser_WhenSuccessful() throws Exception {
         var id = 1L;
 
-        BDDMockito.when(repository.findById(id)).thenReturn(Optional.ofNullable(usersList.getFirst()));
+        BDDMockito.when(repository.removeById(id)).thenReturn(1);
 
         mockMvc.perform(MockMvcRequestBuilders.delete(URL + "/{id}", id)
                 )
@@ -247,6 +295,320 @@ class UserControllerTest {
 
     }
 
+    @Test
+    @DisplayName("GET v1/users?limit=2 returns the first page and the next cursor")
+    @Order(13)
+    void findAllAfter_ReturnsPageWithNextCursor_WhenLimitIsReached() throws Exception {
+        var response = fileUtils.readResourceFile("user/get-user-page-limit-2-200.json");
+
+        BDDMockito.when(repository.findSummariesByIdGreaterThan(0L, Limit.of(2))).thenReturn(userUtils.newUserSummaryList().subList(0, 2));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL).param("limit", "2"))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().json(response, true));
+    }
+
+    @Test
+    @DisplayName("GET v1/users?limit=0 returns bad request when limit is out of range")
+    @Order(14)
+    void findAllAfter_ReturnsBadRequest_WhenLimitIsOutOfRange() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(URL).param("limit", "0"))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET v1/users streams all users as NDJSON when accept is application/x-ndjson")
+    @Order(15)
+    void streamAll_StreamsAllUsers_WhenAcceptIsNdjson() throws Exception {
+        var response = fileUtils.readResourceFile("user/get-user-stream-200.ndjson");
+        var users = usersList.subList(0, 2).stream()
+                .map(user -> new UserGetResponse(user.getFirstName(), user.getLastName(), user.getEmail()));
+
+        BDDMockito.when(repository.streamAll()).thenReturn(users);
+
+        var mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(URL).accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.content().string(response.strip()));
+    }
+
+    @Test
+    @DisplayName("POST v1/users/batch creates valid users and reports the rejected ones")
+    @Order(16)
+    void saveAll_ReturnsPerItemReport_WhenBatchHasInvalidAndDuplicatedUsers() throws Exception {
+        var request = fileUtils.readResourceFile("user/post-request-user-batch-200.json");
+        var response = fileUtils.readResourceFile("user/post-response-user-batch-200.json");
+        var savedUser = userUtils.newSavedUser();
+
+        BDDMockito.when(repository.findEmailsByEmailIn(ArgumentMatchers.anyCollection()))
+                .thenReturn(List.of(usersList.getFirst().getEmail()));
+        BDDMockito.when(repository.insertAll(ArgumentMatchers.anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId(savedUser.getId()));
+            return users;
+        });
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post(URL + "/batch")
+                        .content(request)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().json(response, true));
+    }
+
+    @Test
+    @DisplayName("POST v1/users/batch creates users from an NDJSON stream")
+    @Order(17)
+    void saveAllStreamed_CreatesUsers_WhenBodyIsNdjson() throws Exception {
+        var request = fileUtils.readResourceFile("user/get-user-stream-200.ndjson");
+
+        var ids = new AtomicLong();
+
+        BDDMockito.when(repository.insertAll(ArgumentMatchers.anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId(ids.incrementAndGet()));
+            return users;
+        });
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post(URL + "/batch")
+                        .content(request)
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.created").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.failed").value(0));
+    }
+
+    @Test
+    @DisplayName("GET v1/users/search?q=ana returns the users matching the prefix")
+    @Order(18)
+    void search_ReturnsMatchingUsers_WhenPrefixMatches() throws Exception {
+        var response = fileUtils.readResourceFile("user/get-user-ana-name-200.json");
+        var ana = usersList.getFirst();
+        usersList.forEach(searchIndex::index);
+
+        BDDMockito.when(repository.findAllById(List.of(ana.getId()))).thenReturn(List.of(ana));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/search").param("q", "ana").param("limit", "5"))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().json(response, true));
+
+        usersList.forEach(user -> searchIndex.remove(user.getId()));
+    }
+
+    @Test
+    @DisplayName("GET v1/users returns 304 without loading the users when If-None-Match matches the watermark")
+    @Order(19)
+    void findAll_ReturnsNotModified_WhenETagMatches() throws Exception {
+        BDDMockito.when(changeRepository.findWatermark()).thenReturn(new UserWatermark(6L, 0L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL).header(HttpHeaders.IF_NONE_MATCH, "W/\"6-0\""))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "W/\"6-0\""))
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        BDDMockito.then(repository).should(Mockito.never()).findAllResponses(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("GET v1/users/1 returns 304 from the version alone when If-None-Match matches")
+    @Order(20)
+    void findById_ReturnsNotModified_WhenETagMatches() throws Exception {
+        var id = 10L;
+
+        BDDMockito.when(repository.findVersionById(id)).thenReturn(Optional.of(2L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"2\""));
+
+        BDDMockito.then(repository).should(Mockito.never()).findById(id);
+    }
+
+    @Test
+    @DisplayName("PUT v1/users returns 412 when If-Match does not match the current version")
+    @Order(21)
+    void update_ReturnsPreconditionFailed_WhenIfMatchIsStale() throws Exception {
+        BDDMockito.when(repository.updateByIdAndVersion(ArgumentMatchers.eq(1L), ArgumentMatchers.eq(0L), ArgumentMatchers.anyString(), ArgumentMatchers.anyString(), ArgumentMatchers.anyString()))
+                .thenReturn(0);
+        BDDMockito.when(repository.existsById(1L)).thenReturn(true);
+
+        var request = fileUtils.readResourceFile("user/put-request-user-200.json");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put(URL)
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .content(request)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+
+        BDDMockito.then(repository).should(Mockito.never())
+                .updateById(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString(), ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+    }
+
+    @Test
+    @DisplayName("GET v1/users returns Smile when the caller accepts application/x-jackson-smile")
+    @Order(22)
+    void findAll_ReturnsSmile_WhenSmileIsAccepted() throws Exception {
+        BDDMockito.when(changeRepository.findWatermark()).thenReturn(new UserWatermark(6L, 0L));
+        BDDMockito.when(repository.findAllResponses(ArgumentMatchers.any())).thenReturn(userUtils.newUserGetResponseList());
+        var smile = new ObjectMapper(new SmileFactory());
+
+        var mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(URL).accept(MediaType.valueOf("application/x-jackson-smile")))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/x-jackson-smile"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn();
+
+        var users = smile.readValue(mvcResult.getResponse().getContentAsByteArray(), UserGetResponse[].class);
+        Assertions.assertThat(users).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(userUtils.newUserGetResponseList());
+    }
+
+    @Test
+    @DisplayName("GET v1/users/changes returns the changes published after since and the offset to continue from")
+    @Order(23)
+    void findChanges_ReturnsChangesAfterOffset_WhenSuccessful() throws Exception {
+        var user = usersList.getFirst();
+        var created = UserChange.of(UserChange.Type.CREATED, user).withChangeOffset(3L);
+        var deleted = UserChange.deleted(user.getId()).withChangeOffset(4L);
+
+        BDDMockito.when(changeRepository.findByChangeOffsetGreaterThanOrderByChangeOffset(2L, Limit.of(100)))
+                .thenReturn(List.of(created, deleted));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/changes").param("since", "2"))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].offset").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].type").value("CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].email").value(user.getEmail()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[1].type").value("DELETED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[1].email").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next").value(4));
+    }
+
+    @Test
+    @DisplayName("GET v1/users/changes returns an empty page when nothing is published within wait")
+    @Order(24)
+    void findChanges_ReturnsEmptyPage_WhenWaitRunsOut() throws Exception {
+        BDDMockito.when(changeRepository.findByChangeOffsetGreaterThanOrderByChangeOffset(ArgumentMatchers.eq(7L), ArgumentMatchers.any()))
+                .thenReturn(List.of());
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/changes").param("since", "7").param("wait", "1"))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes").isEmpty())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next").value(7));
+    }
+
+    @Test
+    @DisplayName("GET v1/users?ids= returns the found users and the missing ids in one call")
+    @Order(25)
+    void findAllById_ReturnsFoundUsersAndMissingIds_WhenSomeIdsDoNotExist() throws Exception {
+        BDDMockito.when(repository.findByIdIn(ArgumentMatchers.anyCollection()))
+                .thenReturn(List.of(usersList.get(1), usersList.get(3)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL).param("ids", "4,2,404,2"))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users[*].id").value(Matchers.contains(4, 2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.users[1].email").value(usersList.get(1).getEmail()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.missing").value(Matchers.contains(404)));
+    }
+
+    @Test
+    @DisplayName("POST v1/users/lookup returns 413 when more ids than user-service.batch.lookup-max-ids are sent")
+    @Order(26)
+    void lookup_ReturnsPayloadTooLarge_WhenTooManyIds() throws Exception {
+        var ids = LongStream.rangeClosed(1, 1001).boxed().toList();
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post(URL + "/lookup")
+                        .content(new ObjectMapper().writeValueAsString(ids))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isPayloadTooLarge());
+
+        BDDMockito.then(repository).should(Mockito.never()).findByIdIn(ArgumentMatchers.anyCollection());
+    }
+
+    @Test
+    @DisplayName("POST v1/users with respond-async among other preferences creates the user synchronously when write-behind is disabled")
+    @Order(27)
+    void saveAsync_CreatesUser_WhenWriteBehindIsDisabled() throws Exception {
+        var request = fileUtils.readResourceFile("user/post-request-user-200.json");
+        var response = fileUtils.readResourceFile("user/post-response-user-201.json");
+        var savedUser = userUtils.newSavedUser();
+
+        BDDMockito.when(repository.save(ArgumentMatchers.any(User.class))).thenAnswer(invocation -> {
+            User userToSave = invocation.getArgument(0);
+            userToSave.setId(savedUser.getId());
+            userToSave.setVersion(savedUser.getVersion());
+            return userToSave;
+        });
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post(URL)
+                        .header("Prefer", "return=minimal, Respond-Async; wait=10")
+                        .content(request)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("Preference-Applied"))
+                .andExpect(MockMvcResultMatchers.content().json(response));
+    }
+
+    @Test
+    @DisplayName("GET v1/users/writes/{trackingId} throws NotFound 404 when the write is unknown")
+    @Order(28)
+    void findWriteByTrackingId_ThrowsNotFound_WhenWriteIsUnknown() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/writes/{trackingId}", "3f2b8c1e-6c0a-4d4e-9a55-7f1d2c3b4a5e"))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Write not Found"));
+    }
+
+    @Test
+    @DisplayName("GET v1/users/export streams the users with ids as a CSV attachment")
+    @Order(29)
+    void export_StreamsCsvAttachment_WhenFormatIsCsv() throws Exception {
+        BDDMockito.doAnswer(invocation -> {
+            Consumer<UserPostResponse> action = invocation.getArgument(2);
+            var user = new UserPostResponse();
+            user.setId(1L);
+            user.setFirstName("Ana");
+            user.setLastName("Oliveira");
+            user.setEmail("anaoliveira@email.com");
+            action.accept(user);
+            return null;
+        }).when(repository).exportAll(ArgumentMatchers.eq("Ana"), ArgumentMatchers.anyInt(), ArgumentMatchers.any());
+
+        var mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(URL + "/export").param("format", "CSV").param("name", "Ana"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.csv\""))
+                .andExpect(MockMvcResultMatchers.content().string("id,name,\"second name\",email\n1,Ana,Oliveira,anaoliveira@email.com\n"));
+    }
+
     private static Stream<Arguments> postUserBadRequestSource() {
         var allErrors = allRequiredErrors();
         var emailError = invalidEmailErrors();
@@ -281,4 +643,143 @@ class UserControllerTest {
         var emailRequiredError = "The field 'email' is required";
         return new ArrayList<>(List.of(firstNameError, lastNameError, emailRequiredError));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("POST v1/users/batch reports a null item as INVALID")
+    @Order(30)
+    void saveAll_ReportsInvalidItem_WhenItemIsNull() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post(URL + "/batch")
+                        .content("[null]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.failed").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].status").value("INVALID"));
+        BDDMockito.then(repository).should(Mockito.never()).insertAll(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("GET v1/users/1 returns 406 for Smile, so its strong ETag labels only the JSON body")
+    @Order(31)
+    void findById_ReturnsNotAcceptable_WhenSmileIsAccepted() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/{id}", 1L).accept(MediaType.valueOf("application/x-jackson-smile")))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isNotAcceptable());
+    }
+
+    @Test
+    @DisplayName("POST v1/users/batch reports an email reserved by a pending write-behind signup as EMAIL_EXISTS")
+    @Order(32)
+    void saveAll_ReportsEmailExists_WhenEmailIsReserved() throws Exception {
+        var email = userUtils.newEmailUser();
+        emailIndex.reserve(email);
+        try {
+            mockMvc.perform(MockMvcRequestBuilders
+                            .post(URL + "/batch")
+                            .content("[{\"name\":\"Ana\",\"second name\":\"Designer\",\"email\":\"%s\"}]".formatted(email))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andDo(MockMvcResultHandlers.print())
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].status").value("EMAIL_EXISTS"));
+        } finally {
+            emailIndex.release(email);
+        }
+        BDDMockito.then(repository).should(Mockito.never()).insertAll(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("GET v1/users/1 returns 429 with Retry-After once the remote address is over its limit, even with a new X-API-Key each time")
+    @Order(33)
+    void findById_ReturnsTooManyRequests_WhenRemoteAddressIsOverLimit() throws Exception {
+        BDDMockito.when(repository.findById(ArgumentMatchers.anyLong())).thenReturn(Optional.of(usersList.getFirst()));
+
+        MvcResult result;
+        var requests = 0;
+        do {
+            result = mockMvc.perform(MockMvcRequestBuilders.get(URL + "/{id}", 1L)
+                            .header("X-API-Key", UUID.randomUUID().toString())
+                            .with(request -> {
+                                request.setRemoteAddr("10.0.0.33");
+                                return request;
+                            }))
+                    .andReturn();
+        } while (result.getResponse().getStatus() == HttpStatus.OK.value() && ++requests < 1000);
+
+        Assertions.assertThat(result.getResponse().getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        Assertions.assertThat(result.getResponse().getHeader(HttpHeaders.RETRY_AFTER)).isNotBlank();
+    }
+
+    @Test
+    @DisplayName("POST v1/users/exports answers 202 with the status URL of the export, which GET v1/users/exports/{id} returns")
+    @Order(34)
+    void exportToFile_ReturnsAcceptedWithLocation_WhenExportIsStarted() throws Exception {
+        var exportId = UUID.randomUUID();
+        BDDMockito.when(exportJobs.submit("Ana", UserExportService.Format.CSV, true))
+                .thenReturn(new UserExportGetResponse(exportId, UserExportGetResponse.Status.PENDING, null, null, null));
+        BDDMockito.when(exportJobs.findById(exportId))
+                .thenReturn(Optional.of(new UserExportGetResponse(exportId, UserExportGetResponse.Status.COMPLETED, "users-1.csv.gz", 1L, null)));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(URL + "/exports").param("format", "CSV").param("name", "Ana").param("gzip", "true"))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.LOCATION, "http://localhost/v1/users/exports/" + exportId))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("PENDING"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/exports/{exportId}", exportId))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("COMPLETED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.file").value("users-1.csv.gz"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rows").value(1));
+    }
+
+    @Test
+    @DisplayName("GET v1/users/exports/{id} returns 404 for an unknown export")
+    @Order(35)
+    void findExportById_ReturnsNotFound_WhenExportIsUnknown() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(URL + "/exports/{exportId}", UUID.randomUUID()))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("prefersRespondAsync finds respond-async in any position, case and header line, and ignores its parameters")
+    @Order(36)
+    void prefersRespondAsync_ParsesPreferenceList_WhenHeaderHasSeveralPreferences() {
+        Assertions.assertThat(UserController.prefersRespondAsync(List.of("respond-async"))).isTrue();
+        Assertions.assertThat(UserController.prefersRespondAsync(List.of("return=minimal, Respond-Async; wait=10"))).isTrue();
+        Assertions.assertThat(UserController.prefersRespondAsync(List.of("return=minimal", "respond-async"))).isTrue();
+        Assertions.assertThat(UserController.prefersRespondAsync(List.of("return=minimal", "respond-async-later"))).isFalse();
+        Assertions.assertThat(UserController.prefersRespondAsync(null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("GET v1/users returns 400 instead of the list when more users than max-listed-users exist")
+    @Order(37)
+    void findAll_ReturnsBadRequest_WhenMoreUsersThanTheListCap() throws Exception {
+        var tooMany = Collections.nCopies(batchProperties.maxListedUsers() + 1, userUtils.newUserGetResponseList().getFirst());
+        BDDMockito.when(changeRepository.findWatermark()).thenReturn(new UserWatermark(6L, 0L));
+        BDDMockito.when(repository.findAllResponses(Limit.of(batchProperties.maxListedUsers() + 1))).thenReturn(tooMany);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET v1/users?ids=1&limit=2 is answered by the paged listing alone")
+    @Order(38)
+    void findAllAfter_ReturnsPage_WhenIdsAndLimitAreBothSent() throws Exception {
+        var response = fileUtils.readResourceFile("user/get-user-page-limit-2-200.json");
+
+        BDDMockito.when(repository.findSummariesByIdGreaterThan(0L, Limit.of(2))).thenReturn(userUtils.newUserSummaryList().subList(0, 2));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL).param("ids", "1").param("limit", "2"))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().json(response, true));
+
+        BDDMockito.then(repository).should(Mockito.never()).findAllById(ArgumentMatchers.any());
+    }
+}
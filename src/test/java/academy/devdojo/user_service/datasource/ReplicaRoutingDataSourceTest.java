@@ -0,0 +1,124 @@
+package academy.devdojo.user_service.datasource;
+
+import academy.devdojo.user_service.config.ReplicaDataSourceConfiguration;
+import academy.devdojo.user_service.config.UserDataSourceProperties;
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.repository.UserRepository;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Two embedded H2 databases stand in for the primary and a replica. They are not replicated, so a row inserted in only
+ * one of them tells which database a read went to.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingDataSourceTest.PRIMARY_URL,
+        "user-service.datasource.replicas[0].url=jdbc:h2:mem:missingreplica;IFEXISTS=TRUE",
+        "user-service.datasource.replicas[1].url=" + ReplicaRoutingDataSourceTest.REPLICA_URL,
+        "user-service.datasource.read-your-writes-window=1m",
+        "spring.datasource.hikari.connection-timeout=250"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReplicaDataSourceConfiguration.class, ReadYourWritesWindow.class})
+@EnableConfigurationProperties(UserDataSourceProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReplicaRoutingDataSourceTest {
+    static final String PRIMARY_URL = "jdbc:h2:mem:primarydb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MySQL;DATABASE_TO_LOWER=true";
+    static final String REPLICA_URL = "jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MySQL;DATABASE_TO_LOWER=true";
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+    @Autowired
+    private UserRepository repository;
+    @Autowired
+    private ReadYourWritesWindow window;
+
+    @BeforeAll
+    static void createReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").locations("classpath:db/migration/h2").load().migrate();
+        replica.update("insert into \"user\" (first_name, last_name, email) values ('Replica', 'Only', 'replica@devdojo.academy')");
+    }
+
+    @Test
+    @DisplayName("reads outside a transaction go to a replica that is up, skipping the one that is down")
+    @Order(1)
+    void findAll_ReadsFromReplica_WhenNoUserWasWritten() {
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertThat(repository.findAll()).extracting(User::getEmail).containsExactly("replica@devdojo.academy");
+        }
+    }
+
+    @Test
+    @DisplayName("writes go to the primary and, within the read-your-writes window, so do the reads after them")
+    @Order(2)
+    void findAll_ReadsFromPrimary_WhenUserWasJustWritten() {
+        var saved = repository.save(User.builder().firstName("Primary").lastName("Only").email("primary@devdojo.academy").build());
+        window.markWrite();
+
+        Assertions.assertThat(repository.findAll()).extracting(User::getId).containsExactly(saved.getId());
+        Assertions.assertThat(replica.queryForObject("select count(*) from \"user\"", Long.class)).isOne();
+    }
+
+    @Test
+    @DisplayName("a replica whose pool has no free connection sends the read to the primary and stays up")
+    @Order(3)
+    void getConnection_KeepsReplicaUp_WhenItsPoolIsExhausted() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        try (var routing = newRouting(REPLICA_URL, "busy-replica")) {
+            routing.bindTo(registry);
+
+            try (var held = routing.getConnection(); var connection = routing.getConnection()) {
+                Assertions.assertThat(held.getMetaData().getURL()).contains("replicadb");
+                Assertions.assertThat(connection.getMetaData().getURL()).contains("primarydb");
+            }
+
+            Assertions.assertThat(registry.get("user.datasource.replica.up").gauge().value()).isOne();
+            try (var connection = routing.getConnection()) {
+                Assertions.assertThat(connection.getMetaData().getURL()).contains("replicadb");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("a replica that cannot connect to its database is marked down")
+    @Order(4)
+    void getConnection_MarksReplicaDown_WhenItCannotConnect() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        try (var routing = newRouting("jdbc:h2:mem:missingreplica;IFEXISTS=TRUE", "missing-replica")) {
+            routing.bindTo(registry);
+
+            try (var connection = routing.getConnection()) {
+                Assertions.assertThat(connection.getMetaData().getURL()).contains("primarydb");
+            }
+
+            Assertions.assertThat(registry.get("user.datasource.replica.up").gauge().value()).isZero();
+        }
+    }
+
+    private static ReplicaRoutingDataSource newRouting(String url, String poolName) {
+        var config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername("sa");
+        config.setPoolName(poolName);
+        config.setMaximumPoolSize(1);
+        config.setConnectionTimeout(250);
+        config.setInitializationFailTimeout(-1);
+        var window = new ReadYourWritesWindow(new UserDataSourceProperties(List.of(), Duration.ofMinutes(1), Duration.ofSeconds(5)));
+        return new ReplicaRoutingDataSource(new DriverManagerDataSource(PRIMARY_URL, "sa", ""), List.of(new HikariDataSource(config)),
+                window, Duration.ofSeconds(5));
+    }
+}
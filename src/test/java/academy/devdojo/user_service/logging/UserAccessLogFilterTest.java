@@ -0,0 +1,53 @@
+package academy.devdojo.user_service.logging;
+
+import academy.devdojo.user_service.config.UserLoggingProperties;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class UserAccessLogFilterTest {
+    private final AtomicReference<String> sqlDebugInChain = new AtomicReference<>();
+    private final MockFilterChain filterChain = new MockFilterChain(new HttpServlet() {
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) {
+            sqlDebugInChain.set(MDC.get(SqlDebugTurboFilter.MDC_KEY));
+        }
+    });
+
+    @Test
+    @DisplayName("doFilter tags the request for SQL logging when the header is sent and enabled")
+    @Order(1)
+    void doFilter_TagsRequestForSqlDebug_WhenHeaderIsEnabled() throws Exception {
+        var filter = new UserAccessLogFilter(new UserLoggingProperties(0, Duration.ofSeconds(1), true));
+        var request = new MockHttpServletRequest("GET", "/v1/users");
+        request.addHeader(UserAccessLogFilter.SQL_DEBUG_HEADER, "true");
+
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        Assertions.assertThat(sqlDebugInChain.get()).isEqualTo("true");
+        Assertions.assertThat(MDC.get(SqlDebugTurboFilter.MDC_KEY)).isNull();
+    }
+
+    @Test
+    @DisplayName("doFilter ignores the SQL debug header when it is disabled")
+    @Order(2)
+    void doFilter_IgnoresSqlDebugHeader_WhenHeaderIsDisabled() throws Exception {
+        var filter = new UserAccessLogFilter(new UserLoggingProperties(0, Duration.ofSeconds(1), false));
+        var request = new MockHttpServletRequest("GET", "/v1/users");
+        request.addHeader(UserAccessLogFilter.SQL_DEBUG_HEADER, "true");
+
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        Assertions.assertThat(sqlDebugInChain.get()).isNull();
+    }
+}
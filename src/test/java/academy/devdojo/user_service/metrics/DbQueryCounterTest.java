@@ -0,0 +1,43 @@
+package academy.devdojo.user_service.metrics;
+
+import academy.devdojo.user_service.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class DbQueryCounterTest {
+    @Autowired
+    private DbQueryCounter counter;
+    @Autowired
+    private UserService service;
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    @DisplayName("stop returns the statements Hibernate sent since start")
+    @Order(1)
+    void stop_ReturnsStatementCount_WhenStatementsWereSent() {
+        counter.start();
+        service.findAll(null);
+        service.findAll("Ana");
+
+        Assertions.assertThat(counter.stop()).isEqualTo(2);
+        Assertions.assertThat(counter.stop()).isZero();
+    }
+
+    @Test
+    @DisplayName("UserService operations are timed per method")
+    @Order(2)
+    void userService_RecordsTimerPerMethod_WhenCalled() {
+        service.findAll(null);
+
+        var timer = registry.find("user.service").tag("method", "findAll").timer();
+
+        Assertions.assertThat(timer).isNotNull();
+        Assertions.assertThat(timer.count()).isPositive();
+    }
+}
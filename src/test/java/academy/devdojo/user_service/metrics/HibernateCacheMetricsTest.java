@@ -0,0 +1,39 @@
+package academy.devdojo.user_service.metrics;
+
+import academy.devdojo.user_service.domain.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class HibernateCacheMetricsTest {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    @DisplayName("cache.gets counts the hits of the user region Hibernate reads from")
+    @Order(1)
+    void bindTo_CountsRegionHits_WhenEntityIsReadFromSecondLevelCache() {
+        var user = User.builder().firstName("Laura").lastName("Mendes").email("lauramendes@email.com").build();
+        try (var entityManager = entityManagerFactory.createEntityManager()) {
+            entityManager.getTransaction().begin();
+            entityManager.persist(user);
+            entityManager.getTransaction().commit();
+        }
+        for (int i = 0; i < 2; i++) {
+            try (var entityManager = entityManagerFactory.createEntityManager()) {
+                entityManager.find(User.class, user.getId());
+            }
+        }
+
+        var hits = registry.get("cache.gets").tag("cache", User.CACHE_REGION).tag("result", "hit").functionCounter();
+
+        Assertions.assertThat(hits.count()).isPositive();
+    }
+}
@@ -0,0 +1,156 @@
+package academy.devdojo.user_service.outbox;
+
+import academy.devdojo.user_service.concurrency.UserBulkhead;
+import academy.devdojo.user_service.config.UserConcurrencyProperties;
+import academy.devdojo.user_service.config.UserOutboxProperties;
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.domain.UserChange;
+import academy.devdojo.user_service.repository.UserChangeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+@DataJpaTest(properties = {"user-service.outbox.relay-enabled=true", "user-service.outbox.batch-size=2"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({UserChangeRelay.class, UserChangeRetention.class, LocalUserChangeBroker.class, UserBulkhead.class, SimpleMeterRegistry.class})
+@EnableConfigurationProperties({UserOutboxProperties.class, UserConcurrencyProperties.class})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class UserChangeRelayTest {
+    @Autowired
+    private UserChangeRelay relay;
+    @Autowired
+    private UserChangeRetention retention;
+    @Autowired
+    private LocalUserChangeBroker broker;
+    @Autowired
+    private UserChangeRepository repository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private UserBulkhead bulkhead;
+    @Autowired
+    private UserOutboxProperties properties;
+
+    @Test
+    @DisplayName("relay numbers the pending changes in id order, in batches, and publishes them")
+    @Order(1)
+    void relay_AssignsConsecutiveOffsets_WhenChangesArePending() throws Exception {
+        var changes = repository.saveAll(LongStream.rangeClosed(1, 3).mapToObj(UserChange::deleted).toList());
+
+        var relayed = relay.relay();
+
+        Assertions.assertThat(relayed).isEqualTo(3);
+        Assertions.assertThat(repository.findByChangeOffsetGreaterThanOrderByChangeOffset(0L, Limit.of(10)))
+                .extracting(UserChange::getId, UserChange::getChangeOffset)
+                .containsExactly(
+                        Assertions.tuple(changes.get(0).getId(), 1L),
+                        Assertions.tuple(changes.get(1).getId(), 2L),
+                        Assertions.tuple(changes.get(2).getId(), 3L));
+        Assertions.assertThat(broker.awaitPublishedAfter(2L, Duration.ZERO)).isTrue();
+        Assertions.assertThat(broker.awaitPublishedAfter(3L, Duration.ZERO)).isFalse();
+    }
+
+    @Test
+    @DisplayName("relay continues after the highest published offset and leaves published changes alone")
+    @Order(2)
+    void relay_ContinuesAfterHighestOffset_WhenChangesWerePublished() {
+        repository.save(UserChange.deleted(1L).withChangeOffset(41L));
+        var pending = repository.save(UserChange.deleted(2L));
+
+        var relayed = relay.relay();
+
+        Assertions.assertThat(relayed).isEqualTo(1);
+        Assertions.assertThat(repository.findById(pending.getId())).get()
+                .extracting(UserChange::getChangeOffset).isEqualTo(42L);
+        Assertions.assertThat(relay.relay()).isZero();
+    }
+
+    @Test
+    @DisplayName("findWatermark changes when a change is written and again when the relay numbers it")
+    @Order(3)
+    void findWatermark_Changes_WhenChangeIsWrittenAndRelayed() {
+        var etags = new HashSet<String>();
+        etags.add(repository.findWatermark().etag());
+
+        repository.save(UserChange.deleted(1L));
+        etags.add(repository.findWatermark().etag());
+        relay.relay();
+        etags.add(repository.findWatermark().etag());
+        repository.save(UserChange.deleted(2L));
+        etags.add(repository.findWatermark().etag());
+
+        Assertions.assertThat(etags).hasSize(4);
+    }
+
+    @Test
+    @DisplayName("prune deletes the changes written before the cutoff, in batches, but keeps the highest offset")
+    @Order(4)
+    void prune_DeletesExpiredChangesButTheLast_WhenCutoffIsPassed() {
+        repository.saveAll(LongStream.rangeClosed(1, 5).mapToObj(UserChange::deleted).toList());
+        relay.relay();
+
+        Assertions.assertThat(retention.prune(Instant.now().minus(Duration.ofDays(1)))).isZero();
+        Assertions.assertThat(retention.prune(Instant.now().plus(Duration.ofDays(1)))).isEqualTo(4);
+        Assertions.assertThat(repository.findByChangeOffsetGreaterThanOrderByChangeOffset(0L, Limit.of(10)))
+                .extracting(UserChange::getChangeOffset)
+                .containsExactly(5L);
+        Assertions.assertThat(retention.prune(Instant.now().plus(Duration.ofDays(1)))).isZero();
+    }
+
+    @Test
+    @DisplayName("scrubByUserId clears the names and email of the user's changes and leaves the other users' alone")
+    @Order(5)
+    void scrubByUserId_ClearsPersonalData_WhenUserIsDeleted() {
+        var user = User.builder().id(1L).firstName("Ash").lastName("Ketchum").email("ash@pallet.com").build();
+        var other = user.withId(2L);
+        repository.saveAll(List.of(UserChange.of(UserChange.Type.CREATED, user),
+                UserChange.of(UserChange.Type.UPDATED, user), UserChange.of(UserChange.Type.CREATED, other)));
+        relay.relay();
+
+        Assertions.assertThat(repository.scrubByUserId(1L)).isEqualTo(2);
+        entityManager.clear();
+        Assertions.assertThat(repository.findByChangeOffsetGreaterThanOrderByChangeOffset(0L, Limit.of(10)))
+                .extracting(UserChange::getUserId, UserChange::getEmail)
+                .containsExactly(
+                        Assertions.tuple(1L, null),
+                        Assertions.tuple(1L, null),
+                        Assertions.tuple(2L, "ash@pallet.com"));
+    }
+
+    @Test
+    @DisplayName("poller wakes up the local waiters with the highest offset published by another instance")
+    @Order(6)
+    void poll_WakesUpWaiters_WhenAnotherInstancePublished() throws Exception {
+        var poller = new UserChangePoller(repository, broker, bulkhead, properties);
+        repository.save(UserChange.deleted(1L).withChangeOffset(1000L));
+        var waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return broker.awaitPublishedAfter(999L, Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (!broker.hasWaiters()) {
+            Thread.onSpinWait();
+        }
+
+        poller.poll();
+
+        Assertions.assertThat(waiter.get(1, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,106 @@
+package academy.devdojo.user_service.ratelimit;
+
+import academy.devdojo.user_service.config.UserRateLimitProperties;
+import academy.devdojo.user_service.config.UserRateLimitProperties.Limit;
+import academy.devdojo.user_service.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class UserRateLimiterTest {
+    private SimpleMeterRegistry registry;
+    private UserRateLimitProperties properties;
+    private UserRateLimiter limiter;
+
+    @BeforeEach
+    void init() {
+        registry = new SimpleMeterRegistry();
+        properties = new UserRateLimitProperties(true, "X-API-Key", Set.of("partner"), 1000, new Limit(1000, 100), Map.of("findAll", new Limit(1, 3)));
+        limiter = new UserRateLimiter(properties, registry);
+    }
+
+    @Test
+    @DisplayName("tryAcquire lets a burst through and then asks to wait about one interval")
+    @Order(1)
+    void tryAcquire_ReturnsWait_WhenBurstIsSpent() {
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertThat(limiter.tryAcquire("findAll", "ip:10.0.0.1")).isZero();
+        }
+
+        Assertions.assertThat(limiter.tryAcquire("findAll", "ip:10.0.0.1"))
+                .isPositive()
+                .isLessThanOrEqualTo(Duration.ofSeconds(1));
+        Assertions.assertThat(registry.get("user.rate.limit.requests").tags("route", "findAll", "result", "allowed").counter().count()).isEqualTo(3);
+        Assertions.assertThat(registry.get("user.rate.limit.requests").tags("route", "findAll", "result", "rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("tryAcquire keeps a bucket per client and route, with the default limit for unlisted routes")
+    @Order(2)
+    void tryAcquire_UsesSeparateBuckets_WhenClientOrRouteDiffers() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("findAll", "ip:10.0.0.1");
+        }
+
+        Assertions.assertThat(limiter.tryAcquire("findAll", "ip:10.0.0.2")).isZero();
+        Assertions.assertThat(limiter.tryAcquire("findById", "ip:10.0.0.1")).isZero();
+        Assertions.assertThat(registry.get("user.rate.limit.buckets").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("preHandle rejects with 429 and Retry-After, keying the client by a known API key before the remote address")
+    @Order(3)
+    void preHandle_ThrowsTooManyRequestsException_WhenClientHasNoPermit() throws Exception {
+        var interceptor = new UserRateLimitInterceptor(limiter, properties);
+        var handler = new HandlerMethod(this, UserRateLimiterTest.class.getDeclaredMethod("findAll"));
+        var request = new MockHttpServletRequest("GET", "/v1/users");
+        request.addHeader("X-API-Key", "partner");
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), handler)).isTrue();
+        }
+
+        Assertions.assertThatException()
+                .isThrownBy(() -> interceptor.preHandle(request, new MockHttpServletResponse(), handler))
+                .isInstanceOfSatisfying(TooManyRequestsException.class, e -> {
+                    Assertions.assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                    Assertions.assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+                });
+        Assertions.assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/v1/users"), new MockHttpServletResponse(), handler)).isTrue();
+    }
+
+    @Test
+    @DisplayName("preHandle counts unknown API keys against the remote address")
+    @Order(4)
+    void preHandle_ThrowsTooManyRequestsException_WhenUnknownKeysShareAddress() throws Exception {
+        var interceptor = new UserRateLimitInterceptor(limiter, properties);
+        var handler = new HandlerMethod(this, UserRateLimiterTest.class.getDeclaredMethod("findAll"));
+        for (int i = 0; i < 4; i++) {
+            var request = new MockHttpServletRequest("GET", "/v1/users");
+            request.setRemoteAddr("10.0.1.1");
+            request.addHeader("X-API-Key", "made-up-" + i);
+            if (i < 3) {
+                Assertions.assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), handler)).isTrue();
+            } else {
+                Assertions.assertThatException()
+                        .isThrownBy(() -> interceptor.preHandle(request, new MockHttpServletResponse(), handler))
+                        .isInstanceOf(TooManyRequestsException.class);
+            }
+        }
+        Assertions.assertThat(registry.get("user.rate.limit.requests").tag("route", "findAll").tag("result", "allowed").counter().count())
+                .isEqualTo(3);
+    }
+
+    @SuppressWarnings("unused")
+    private void findAll() {
+    }
+}
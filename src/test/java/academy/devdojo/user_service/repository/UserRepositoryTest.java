@@ -1,13 +1,26 @@
 package academy.devdojo.user_service.repository;
 
 import academy.devdojo.user_service.commons.UserUtils;
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.projection.UserSummary;
+import academy.devdojo.user_service.response.UserGetResponse;
+import academy.devdojo.user_service.response.UserPostResponse;
+import jakarta.persistence.EntityManagerFactory;
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -19,6 +32,8 @@ class UserRepositoryTest {
     private UserRepository repository;
     @Autowired
     private UserUtils userUtils;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     @Test
     @DisplayName("save creates a user")
@@ -39,4 +54,183 @@ class UserRepositoryTest {
         var users = repository.findAll();
         Assertions.assertThat(users).isNotEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("findSummariesByIdGreaterThan returns the users after the given id")
+    @Order(3)
+    void findByIdGreaterThan_ReturnsNextPage_WhenSuccessful() {
+        var users = userUtils.newUserList().stream().map(user -> user.withId(null)).toList();
+        var savedUsers = repository.saveAll(users);
+        var after = savedUsers.getFirst().getId();
+
+        var page = repository.findSummariesByIdGreaterThan(after, Limit.of(2));
+
+        Assertions.assertThat(page).hasSize(2).extracting(UserSummary::id).containsExactly(after + 1, after + 2);
+    }
+
+    @Test
+    @DisplayName("streamAll streams all users ordered by id")
+    @Order(4)
+    void streamAll_StreamsAllUsers_WhenSuccessful() {
+        var users = userUtils.newUserList().stream().map(user -> user.withId(null)).toList();
+        repository.saveAll(users);
+
+        try (var stream = repository.streamAll()) {
+            Assertions.assertThat(stream.toList()).hasSize(users.size()).extracting("email")
+                    .containsExactlyElementsOf(users.stream().map(User::getEmail).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("existsByEmail returns true only when the email is taken")
+    @Order(5)
+    @Sql("/sql/init_one_user.sql")
+    void existsByEmail_ReturnsTrue_WhenEmailIsTaken() {
+        var email = userUtils.newSavedUser().getEmail();
+
+        Assertions.assertThat(repository.existsByEmail(email)).isTrue();
+        Assertions.assertThat(repository.existsByEmail(userUtils.newEmailUser())).isFalse();
+    }
+
+    @Test
+    @DisplayName("insertAll inserts users in a single batch and sets their generated ids")
+    @Order(6)
+    void insertAll_InsertsUsersAndSetsIds_WhenSuccessful() {
+        var users = userUtils.newUserList().stream().map(user -> user.withId(null)).toList();
+
+        var insertedUsers = repository.insertAll(users);
+
+        Assertions.assertThat(insertedUsers).extracting("id").doesNotContainNull().doesNotHaveDuplicates();
+        Assertions.assertThat(repository.findEmailsByEmailIn(users.stream().map(User::getEmail).toList()))
+                .hasSize(users.size());
+    }
+
+    @Test
+    @DisplayName("findResponsesByFirstNameIgnoreCase projects the users with the given name ignoring case")
+    @Order(7)
+    void findResponsesByFirstNameIgnoreCase_ReturnsProjections_WhenNameIsFound() {
+        var users = userUtils.newUserList().stream().map(user -> user.withId(null)).toList();
+        repository.saveAll(users);
+
+        var responses = repository.findResponsesByFirstNameIgnoreCase("ANA", Limit.unlimited());
+
+        Assertions.assertThat(responses).hasSize(1).extracting("email").containsExactly("anaoliveira@email.com");
+    }
+
+    @Test
+    @DisplayName("findById returns the saved user")
+    @Order(8)
+    void findById_ReturnsUser_WhenIdExists() {
+        var savedUser = repository.save(userUtils.newSavedUser().withId(null));
+
+        var user = repository.findById(savedUser.getId());
+
+        Assertions.assertThat(user).isPresent().get().extracting(User::getEmail).isEqualTo(savedUser.getEmail());
+    }
+
+    @Test
+    @DisplayName("updateById and removeById return the affected row count")
+    @Order(9)
+    void updateByIdAndRemoveById_ReturnAffectedRows_WhenSuccessful() {
+        var savedUser = repository.save(userUtils.newSavedUser().withId(null));
+        var id = savedUser.getId();
+
+        Assertions.assertThat(repository.updateById(id, "José", "Campos", userUtils.newEmailUser())).isEqualTo(1);
+        Assertions.assertThat(repository.existsByEmail(userUtils.newEmailUser())).isTrue();
+        Assertions.assertThat(repository.removeById(id)).isEqualTo(1);
+        Assertions.assertThat(repository.removeById(id)).isZero();
+        Assertions.assertThat(repository.updateById(id, "José", "Campos", userUtils.newEmailUser())).isZero();
+    }
+
+    @Test
+    @DisplayName("updateById throws DataIntegrityViolationException when the email belongs to another user")
+    @Order(10)
+    void updateById_ThrowsDataIntegrityViolationException_WhenEmailIsTaken() {
+        var users = repository.saveAll(userUtils.newUserList().stream().map(user -> user.withId(null)).toList());
+        var user = users.getFirst();
+
+        Assertions.assertThatException()
+                .isThrownBy(() -> repository.updateById(user.getId(), user.getFirstName(), user.getLastName(), users.getLast().getEmail()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("updateByIdAndVersion updates and increments the version only when the version matches")
+    @Order(11)
+    void updateByIdAndVersion_IncrementsVersion_WhenVersionMatches() {
+        var savedUser = repository.save(userUtils.newSavedUser().withId(null).withVersion(null));
+        var id = savedUser.getId();
+
+        Assertions.assertThat(repository.updateByIdAndVersion(id, 0L, "José", "Campos", userUtils.newEmailUser())).isEqualTo(1);
+        Assertions.assertThat(repository.updateByIdAndVersion(id, 0L, "José", "Campos", userUtils.newEmailUser())).isZero();
+        Assertions.assertThat(repository.findVersionById(id)).contains(1L);
+    }
+
+    @Test
+    @DisplayName("findByIdIn returns the users with the given ids and skips the missing ones")
+    @Order(12)
+    void findByIdIn_ReturnsFoundUsers_WhenSomeIdsAreMissing() {
+        var users = userUtils.newUserList().stream().map(user -> user.withId(null).withVersion(null)).toList();
+        var savedUsers = repository.saveAll(users);
+        var ids = List.of(savedUsers.get(0).getId(), savedUsers.get(2).getId(), -1L);
+
+        var found = repository.findByIdIn(ids);
+
+        Assertions.assertThat(found).extracting(User::getId)
+                .containsExactlyInAnyOrder(savedUsers.get(0).getId(), savedUsers.get(2).getId());
+    }
+
+    @Test
+    @DisplayName("findResponsesByFirstNameIgnoreCase is never answered from a query cache, so it sees JDBC batch inserts")
+    @Order(13)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void findResponsesByFirstNameIgnoreCase_SeesBatchInsertedUsers_WhenCalledAgain() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var first = repository.insertAll(List.of(User.builder().firstName("Cached").lastName("One").email("cached.one@email.com").build()));
+
+        Assertions.assertThat(repository.findResponsesByFirstNameIgnoreCase("cached", Limit.unlimited())).hasSize(1);
+        Assertions.assertThat(repository.findResponsesByFirstNameIgnoreCase("cached", Limit.unlimited())).hasSize(1);
+        Assertions.assertThat(statistics.getQueryCachePutCount()).isZero();
+
+        var second = repository.insertAll(List.of(User.builder().firstName("Cached").lastName("Two").email("cached.two@email.com").build()));
+        Assertions.assertThat(repository.findResponsesByFirstNameIgnoreCase("cached", Limit.unlimited())).extracting(UserGetResponse::getEmail)
+                .containsExactly("cached.one@email.com", "cached.two@email.com");
+
+        repository.deleteAllByIdInBatch(List.of(first.getFirst().getId(), second.getFirst().getId()));
+    }
+
+    @Test
+    @DisplayName("insertAll leaves the users already in the second-level cache there")
+    @Order(14)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void insertAll_KeepsCachedUsers_WhenUsersAreBatchInserted() {
+        var cached = repository.save(User.builder().firstName("Kept").lastName("Cached").email("kept.cached@email.com").build());
+        repository.findById(cached.getId());
+        Assertions.assertThat(entityManagerFactory.getCache().contains(User.class, cached.getId())).isTrue();
+
+        var inserted = repository.insertAll(List.of(User.builder().firstName("Batch").lastName("One").email("batch.one@email.com").build()));
+
+        Assertions.assertThat(entityManagerFactory.getCache().contains(User.class, cached.getId())).isTrue();
+        repository.deleteAllByIdInBatch(List.of(cached.getId(), inserted.getFirst().getId()));
+    }
+
+    @Test
+    @DisplayName("exportAll hands over the users with the given first name, with ids, in id order")
+    @Order(15)
+    void exportAll_StreamsUsersInIdOrder_WhenNameIsGiven() {
+        var users = userUtils.newUserList().stream().map(user -> user.withId(null).withVersion(null)).toList();
+        var savedUsers = repository.saveAll(users);
+        var exported = new ArrayList<UserPostResponse>();
+
+        repository.exportAll("ANA", 2, exported::add);
+
+        Assertions.assertThat(exported).extracting(UserPostResponse::getId, UserPostResponse::getEmail)
+                .containsExactly(Assertions.tuple(savedUsers.getFirst().getId(), savedUsers.getFirst().getEmail()));
+
+        exported.clear();
+        repository.exportAll(null, 2, exported::add);
+
+        Assertions.assertThat(exported).extracting(UserPostResponse::getId).isSorted()
+                .containsAll(savedUsers.stream().map(User::getId).toList());
+    }
+}
@@ -0,0 +1,115 @@
+package academy.devdojo.user_service.service;
+
+import academy.devdojo.user_service.concurrency.UserBulkhead;
+import academy.devdojo.user_service.config.UserConcurrencyProperties;
+import academy.devdojo.user_service.config.UserExportProperties;
+import academy.devdojo.user_service.exception.ServiceBusyException;
+import academy.devdojo.user_service.response.UserExportGetResponse;
+import academy.devdojo.user_service.response.UserExportPostResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class UserExportJobsTest {
+    @Mock
+    private UserExportService exportService;
+    private UserExportJobs exportJobs;
+
+    @BeforeEach
+    void init() {
+        var registry = new SimpleMeterRegistry();
+        var bulkhead = new UserBulkhead(new UserConcurrencyProperties(1, Duration.ofMillis(20), Duration.ofSeconds(1), false,
+                Duration.ofMillis(20), Duration.ofSeconds(1)), registry);
+        exportJobs = new UserExportJobs(exportService, bulkhead,
+                new UserExportProperties(100, DataSize.ofKilobytes(8), Path.of("exports"), Duration.ofHours(1), 1000, 1, 1, Duration.ofSeconds(30)));
+    }
+
+    @AfterEach
+    void close() {
+        exportJobs.destroy();
+    }
+
+    @Test
+    @DisplayName("submit returns a pending export right away and keeps its file once it completes")
+    @Order(1)
+    void submit_CompletesExportInBackground_WhenExportSucceeds() throws Exception {
+        var release = new CountDownLatch(1);
+        BDDMockito.when(exportService.exportToFile("Ana", UserExportService.Format.CSV, true)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new UserExportPostResponse("users-1.csv.gz", 2);
+        });
+
+        var export = exportJobs.submit("Ana", UserExportService.Format.CSV, true);
+
+        Assertions.assertThat(export.getStatus()).isEqualTo(UserExportGetResponse.Status.PENDING);
+        Assertions.assertThat(exportJobs.findById(export.getExportId())).contains(export);
+
+        release.countDown();
+        var completed = awaitEnd(export.getExportId());
+
+        Assertions.assertThat(completed.getStatus()).isEqualTo(UserExportGetResponse.Status.COMPLETED);
+        Assertions.assertThat(completed.getFile()).isEqualTo("users-1.csv.gz");
+        Assertions.assertThat(completed.getRows()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("submit marks the export as failed when writing the file fails")
+    @Order(2)
+    void submit_FailsExport_WhenExportThrows() throws Exception {
+        BDDMockito.when(exportService.exportToFile(null, UserExportService.Format.NDJSON, false)).thenThrow(new IOException("disk full"));
+
+        var export = exportJobs.submit(null, UserExportService.Format.NDJSON, false);
+        var failed = awaitEnd(export.getExportId());
+
+        Assertions.assertThat(failed.getStatus()).isEqualTo(UserExportGetResponse.Status.FAILED);
+        Assertions.assertThat(failed.getFile()).isNull();
+        Assertions.assertThat(exportJobs.findById(UUID.randomUUID())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("submit queues exports past concurrent-exports and refuses them with 503 past queued-exports")
+    @Order(3)
+    void submit_ThrowsServiceBusyException_WhenExportQueueIsFull() throws Exception {
+        var release = new CountDownLatch(1);
+        BDDMockito.when(exportService.exportToFile(null, UserExportService.Format.CSV, false)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new UserExportPostResponse("users.csv", 0);
+        });
+
+        var running = exportJobs.submit(null, UserExportService.Format.CSV, false);
+        var queued = exportJobs.submit(null, UserExportService.Format.CSV, false);
+
+        Assertions.assertThatExceptionOfType(ServiceBusyException.class)
+                .isThrownBy(() -> exportJobs.submit(null, UserExportService.Format.CSV, false))
+                .satisfies(e -> Assertions.assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("30"));
+
+        release.countDown();
+        Assertions.assertThat(awaitEnd(running.getExportId()).getStatus()).isEqualTo(UserExportGetResponse.Status.COMPLETED);
+        Assertions.assertThat(awaitEnd(queued.getExportId()).getStatus()).isEqualTo(UserExportGetResponse.Status.COMPLETED);
+    }
+
+    private UserExportGetResponse awaitEnd(UUID exportId) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        var export = exportJobs.findById(exportId).orElseThrow();
+        while (export.getStatus() == UserExportGetResponse.Status.PENDING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            export = exportJobs.findById(exportId).orElseThrow();
+        }
+        return export;
+    }
+}
@@ -0,0 +1,83 @@
+package academy.devdojo.user_service.service;
+
+import academy.devdojo.user_service.commons.UserUtils;
+import academy.devdojo.user_service.config.UserExportProperties;
+import academy.devdojo.user_service.repository.UserRepository;
+import academy.devdojo.user_service.response.UserPostResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+@ExtendWith(MockitoExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class UserExportServiceTest {
+    @Mock
+    private UserRepository repository;
+    @TempDir
+    private Path directory;
+    private UserExportService service;
+
+    @BeforeEach
+    void init() {
+        service = new UserExportService(repository, new ObjectMapper(), new UserExportProperties(100, DataSize.ofKilobytes(8), directory, Duration.ofHours(1), 1000, 1, 1, Duration.ofSeconds(30)));
+        var users = new UserUtils().newUserList().subList(0, 2);
+        BDDMockito.doAnswer(invocation -> {
+            Consumer<UserPostResponse> action = invocation.getArgument(2);
+            for (var user : users) {
+                var response = new UserPostResponse();
+                response.setId(user.getId());
+                response.setFirstName(user.getFirstName());
+                response.setLastName(user.getLastName());
+                response.setEmail(user.getEmail());
+                action.accept(response);
+            }
+            return null;
+        }).when(repository).exportAll(ArgumentMatchers.isNull(), ArgumentMatchers.eq(100), ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("exportToFile writes a gzipped CSV with a header and renames it once complete")
+    @Order(1)
+    void exportToFile_WritesGzippedCsv_WhenGzipIsRequested() throws IOException {
+        var export = service.exportToFile(null, UserExportService.Format.CSV, true);
+
+        Assertions.assertThat(export.getRows()).isEqualTo(2);
+        Assertions.assertThat(export.getFile()).startsWith("users-").endsWith(".csv.gz");
+        try (var files = Files.list(directory)) {
+            Assertions.assertThat(files).extracting(file -> file.getFileName().toString()).containsExactly(export.getFile());
+        }
+        try (var content = new GZIPInputStream(Files.newInputStream(directory.resolve(export.getFile())))) {
+            Assertions.assertThat(new String(content.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("""
+                    id,name,"second name",email
+                    1,Ana,Oliveira,anaoliveira@email.com
+                    2,Marcos,Ferreira,marcosferreira@email.com
+                    """);
+        }
+    }
+
+    @Test
+    @DisplayName("exportToFile writes one JSON object per line for NDJSON")
+    @Order(2)
+    void exportToFile_WritesNdjson_WhenFormatIsNdjson() throws IOException {
+        var export = service.exportToFile(null, UserExportService.Format.NDJSON, false);
+
+        Assertions.assertThat(Files.readAllLines(directory.resolve(export.getFile()))).containsExactly(
+                "{\"id\":1,\"name\":\"Ana\",\"second name\":\"Oliveira\",\"email\":\"anaoliveira@email.com\"}",
+                "{\"id\":2,\"name\":\"Marcos\",\"second name\":\"Ferreira\",\"email\":\"marcosferreira@email.com\"}");
+    }
+}
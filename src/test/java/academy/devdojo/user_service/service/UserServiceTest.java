@@ -2,17 +2,37 @@ package academy.devdojo.user_service.service;
 
 import academy.devdojo.exception.EmailExistsException;
 import academy.devdojo.exception.NotFoundException;
+import academy.devdojo.user_service.cache.UserCache;
+import academy.devdojo.user_service.cache.UserEmailIndex;
+import academy.devdojo.user_service.cache.UserSearchIndex;
+import academy.devdojo.user_service.config.UserBatchProperties;
+import academy.devdojo.user_service.config.UserCacheProperties;
+import academy.devdojo.user_service.config.UserConcurrencyProperties;
+import academy.devdojo.user_service.config.UserDataSourceProperties;
+import academy.devdojo.user_service.concurrency.UserReadCoalescer;
 import academy.devdojo.user_service.commons.UserUtils;
+import academy.devdojo.user_service.datasource.ReadYourWritesWindow;
 import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.domain.UserChange;
+import academy.devdojo.user_service.exception.PreconditionFailedException;
+import academy.devdojo.user_service.repository.UserChangeRepository;
 import academy.devdojo.user_service.repository.UserRepository;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -24,6 +44,21 @@ class UserServiceTest {
     private UserService service;
     @Mock
     private UserRepository repository;
+    @Mock
+    private UserEmailIndex emailIndex;
+    @Mock
+    private UserSearchIndex searchIndex;
+    @Mock
+    private UserChangeRepository changeRepository;
+    @Spy
+    private UserBatchProperties batchProperties = new UserBatchProperties(500, 10000, 1000000, 2, 1000, 10000);
+    @Spy
+    private UserCache cache = new UserCache(new UserCacheProperties(100, Duration.ofMinutes(1), Duration.ofMinutes(1)));
+    @Spy
+    private UserReadCoalescer coalescer = new UserReadCoalescer(cache,
+            new UserConcurrencyProperties(10, Duration.ofMillis(100), Duration.ofSeconds(1), false, Duration.ofMillis(20), Duration.ofSeconds(1)));
+    @Spy
+    private ReadYourWritesWindow readYourWrites = new ReadYourWritesWindow(new UserDataSourceProperties(List.of(), Duration.ofMinutes(1), Duration.ofSeconds(5)));
     private List<User> usersList;
     @InjectMocks
     private UserUtils userUtils;
@@ -37,21 +72,22 @@ class UserServiceTest {
     @DisplayName("findAll returns a list with all users when argument is null")
     @Order(1)
     void findAll_ReturnsAllUsers_WhenArgumentIsNull() {
-        BDDMockito.when(repository.findAll()).thenReturn(usersList);
+        var expectedUsers = userUtils.newUserGetResponseList();
+        BDDMockito.when(repository.findAllResponses(Limit.of(10001))).thenReturn(expectedUsers);
 
         var users = service.findAll(null);
 
-        Assertions.assertThat(users).isNotNull().isNotEmpty().hasSameElementsAs(usersList);
+        Assertions.assertThat(users).isNotNull().isNotEmpty().hasSameElementsAs(expectedUsers);
     }
 
     @Test
     @DisplayName("findAll returns list with found objects when name exists")
     @Order(2)
     void findAll_ReturnsUserInList_WhenNameIsFound() {
-        var user = usersList.getFirst();
+        var user = userUtils.newUserGetResponseList().getFirst();
         var expectedUserFound = Collections.singletonList(user);
 
-        BDDMockito.when(repository.findByFirstNameIgnoreCase(user.getFirstName())).thenReturn(expectedUserFound);
+        BDDMockito.when(repository.findResponsesByFirstNameIgnoreCase(user.getFirstName(), Limit.of(10001))).thenReturn(expectedUserFound);
 
         var users = service.findAll(user.getFirstName());
         Assertions.assertThat(users).isNotNull().isNotEmpty().containsExactlyElementsOf(expectedUserFound);
@@ -62,7 +98,7 @@ class UserServiceTest {
     @Order(3)
     void findAll_ReturnsEmptyList_WhenNameIsNotFound() {
         var name = "not found";
-        BDDMockito.when(repository.findByFirstNameIgnoreCase(name)).thenReturn(Collections.emptyList());
+        BDDMockito.when(repository.findResponsesByFirstNameIgnoreCase(name, Limit.of(10001))).thenReturn(Collections.emptyList());
 
         var users = service.findAll(name);
 
@@ -101,11 +137,13 @@ class UserServiceTest {
         var userToSave = userUtils.newSavedUser();
 
         BDDMockito.when(repository.save(userToSave)).thenReturn(userToSave);
-        BDDMockito.when(repository.findByEmail(userToSave.getEmail())).thenReturn(Optional.empty());
+        BDDMockito.when(emailIndex.mightContain(userToSave.getEmail())).thenReturn(false);
 
         var savedUser = service.save(userToSave);
 
         Assertions.assertThat(savedUser).isEqualTo(userToSave).hasNoNullFieldsOrProperties();
+        BDDMockito.then(repository).should(Mockito.never()).existsByEmail(userToSave.getEmail());
+        BDDMockito.then(emailIndex).should().put(userToSave.getEmail());
     }
 
     @Test
@@ -116,7 +154,8 @@ class UserServiceTest {
         var userToSave = userUtils.newSavedUser().withEmail(savedUser.getEmail());
         var email = userToSave.getEmail();
 
-        BDDMockito.when(repository.findByEmail(email)).thenReturn(Optional.of(savedUser));
+        BDDMockito.when(emailIndex.mightContain(email)).thenReturn(true);
+        BDDMockito.when(repository.existsByEmail(email)).thenReturn(true);
 
         Assertions.assertThatException()
                 .isThrownBy(() -> service.save(userToSave))
@@ -129,10 +168,10 @@ class UserServiceTest {
     void delete_RemovesUser_WhenSuccessful() {
         var userToDelete = usersList.getFirst();
 
-        BDDMockito.when(repository.findById(userToDelete.getId())).thenReturn(Optional.of(userToDelete));
-        BDDMockito.doNothing().when(repository).delete(userToDelete);
+        BDDMockito.when(repository.removeById(userToDelete.getId())).thenReturn(1);
 
         Assertions.assertThatNoException().isThrownBy(() -> service.delete(userToDelete.getId()));
+        BDDMockito.then(repository).should(Mockito.never()).findById(userToDelete.getId());
     }
 
     @Test
@@ -141,7 +180,7 @@ class UserServiceTest {
     void delete_ThrowsNotFoundException_WhenUserIsNotFound() {
         var userToDelete = usersList.getFirst();
 
-        BDDMockito.when(repository.findById(userToDelete.getId())).thenReturn(Optional.empty());
+        BDDMockito.when(repository.removeById(userToDelete.getId())).thenReturn(0);
 
         Assertions.assertThatException()
                 .isThrownBy(() -> service.delete(userToDelete.getId()))
@@ -152,15 +191,15 @@ class UserServiceTest {
     @DisplayName("update updates a user")
     @Order(10)
     void update_UpdatesUser_WhenSuccessful() {
-        var userToUpdate = usersList.getFirst().withEmail(userUtils.newEmailUser());
+        var userToUpdate = usersList.getFirst().withEmail(userUtils.newEmailUser()).withVersion(null);
         var email = userToUpdate.getEmail();
         var id = userToUpdate.getId();
 
-        BDDMockito.when(repository.findById(userToUpdate.getId())).thenReturn(Optional.of(userToUpdate));
-        BDDMockito.when(repository.findByEmailAndIdNot(email, id)).thenReturn(Optional.empty());
-        BDDMockito.when(repository.save(userToUpdate)).thenReturn(userToUpdate);
+        BDDMockito.when(repository.updateById(id, userToUpdate.getFirstName(), userToUpdate.getLastName(), email)).thenReturn(1);
 
         Assertions.assertThatNoException().isThrownBy(() -> service.update(userToUpdate));
+        BDDMockito.then(repository).should(Mockito.never()).findById(id);
+        BDDMockito.then(emailIndex).should().put(email);
     }
 
     @Test
@@ -169,28 +208,276 @@ class UserServiceTest {
     void update_ThrowsNotFoundException_WhenUserIsNotFound() {
         var userToUpdate = usersList.getFirst().withEmail(userUtils.newEmailUser());
 
-        BDDMockito.when(repository.findById(userToUpdate.getId())).thenReturn(Optional.empty());
-
         Assertions.assertThatException()
                 .isThrownBy(() -> service.update(userToUpdate))
                 .isInstanceOf(NotFoundException.class);
     }
 
     @Test
-    @DisplayName("update throws EmailExistsException when email belongs to another user")
+    @DisplayName("update throws EmailExistsException when the unique constraint rejects the email")
     @Order(12)
     void update_ThrowsEmailExistsException_WhenEmailBelongsToAnotherUser() {
-        var savedUser = usersList.getLast();
-        var userToUpdate = usersList.getFirst();
+        var userToUpdate = usersList.getFirst().withEmail(usersList.getLast().getEmail()).withVersion(null);
 
-        var email = userToUpdate.getEmail();
+        BDDMockito.when(repository.updateById(userToUpdate.getId(), userToUpdate.getFirstName(), userToUpdate.getLastName(), userToUpdate.getEmail()))
+                .thenThrow(new DataIntegrityViolationException("duplicate email"));
+
+        Assertions.assertThatException()
+                .isThrownBy(() -> service.update(userToUpdate))
+                .isInstanceOf(EmailExistsException.class);
+    }
+
+    @Test
+    @DisplayName("findAllAfter returns the page of users after the given id")
+    @Order(13)
+    void findAllAfter_ReturnsUsersAfterId_WhenArgumentIsNull() {
+        var expectedPage = userUtils.newUserSummaryList().subList(1, 3);
+
+        BDDMockito.when(repository.findSummariesByIdGreaterThan(1L, Limit.of(2))).thenReturn(expectedPage);
+
+        var users = service.findAllAfter(null, 1L, 2);
+
+        Assertions.assertThat(users).isNotNull().containsExactlyElementsOf(expectedPage);
+    }
+
+    @Test
+    @DisplayName("findById returns the cached user without querying the repository again")
+    @Order(14)
+    void findById_ReturnsCachedUser_WhenCalledTwice() {
+        var userToFind = usersList.getFirst();
+
+        BDDMockito.when(repository.findById(userToFind.getId())).thenReturn(Optional.of(userToFind));
+
+        service.findByIdOrThrowNotFound(userToFind.getId());
+        var user = service.findByIdOrThrowNotFound(userToFind.getId());
+
+        Assertions.assertThat(user).isEqualTo(userToFind);
+        BDDMockito.then(repository).should(Mockito.times(1)).findById(userToFind.getId());
+        Assertions.assertThat(cache.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("findById caches not found ids")
+    @Order(15)
+    void findById_CachesNotFound_WhenIdIsNotFound() {
+        var id = 99L;
+
+        BDDMockito.when(repository.findById(id)).thenReturn(Optional.empty());
+
+        Assertions.assertThatException().isThrownBy(() -> service.findByIdOrThrowNotFound(id)).isInstanceOf(NotFoundException.class);
+        Assertions.assertThatException().isThrownBy(() -> service.findByIdOrThrowNotFound(id)).isInstanceOf(NotFoundException.class);
+
+        BDDMockito.then(repository).should(Mockito.times(1)).findById(id);
+    }
+
+    @Test
+    @DisplayName("update evicts the cached user")
+    @Order(16)
+    void update_EvictsCachedUser_WhenSuccessful() {
+        var userToUpdate = usersList.getFirst().withEmail(userUtils.newEmailUser()).withVersion(null);
+        var id = userToUpdate.getId();
+
+        BDDMockito.when(repository.findById(id)).thenReturn(Optional.of(usersList.getFirst()));
+        BDDMockito.when(repository.updateById(id, userToUpdate.getFirstName(), userToUpdate.getLastName(), userToUpdate.getEmail())).thenReturn(1);
+
+        service.findByIdOrThrowNotFound(id);
+        service.update(userToUpdate);
+        service.findByIdOrThrowNotFound(id);
+
+        BDDMockito.then(cache).should().invalidate(id);
+        BDDMockito.then(repository).should(Mockito.times(2)).findById(id);
+    }
+
+    @Test
+    @DisplayName("save throws EmailExistsException when the unique constraint rejects the email")
+    @Order(17)
+    void save_ThrowsEmailExistsException_WhenUniqueConstraintIsViolated() {
+        var userToSave = userUtils.newSavedUser();
+
+        BDDMockito.when(emailIndex.mightContain(userToSave.getEmail())).thenReturn(false);
+        BDDMockito.when(repository.save(userToSave)).thenThrow(new DataIntegrityViolationException("duplicate email"));
+
+        Assertions.assertThatException()
+                .isThrownBy(() -> service.save(userToSave))
+                .isInstanceOf(EmailExistsException.class);
+    }
+
+    @Test
+    @DisplayName("update throws PreconditionFailedException when the user changed since the expected version")
+    @Order(18)
+    void update_ThrowsPreconditionFailed_WhenVersionIsStale() {
+        var userToUpdate = usersList.getFirst().withEmail(userUtils.newEmailUser());
         var id = userToUpdate.getId();
 
-        BDDMockito.when(repository.findById(userToUpdate.getId())).thenReturn(Optional.of(userToUpdate));
-        BDDMockito.when(repository.findByEmailAndIdNot(email, id)).thenReturn(Optional.of(savedUser));
+        BDDMockito.when(repository.updateByIdAndVersion(id, 0L, userToUpdate.getFirstName(), userToUpdate.getLastName(), userToUpdate.getEmail())).thenReturn(0);
+        BDDMockito.when(repository.existsById(id)).thenReturn(true);
+
+        Assertions.assertThatException()
+                .isThrownBy(() -> service.update(userToUpdate))
+                .isInstanceOf(PreconditionFailedException.class);
+        BDDMockito.then(cache).should(Mockito.never()).invalidate(id);
+    }
+
+    @Test
+    @DisplayName("findVersionById answers from the cached user without querying the version")
+    @Order(19)
+    void findVersionById_ReturnsCachedVersion_WhenUserIsCached() {
+        var userToFind = usersList.getFirst().withVersion(3L);
+
+        BDDMockito.when(repository.findById(userToFind.getId())).thenReturn(Optional.of(userToFind));
+
+        service.findByIdOrThrowNotFound(userToFind.getId());
+        var version = service.findVersionByIdOrThrowNotFound(userToFind.getId());
+
+        Assertions.assertThat(version).isEqualTo(3L);
+        BDDMockito.then(repository).should(Mockito.never()).findVersionById(userToFind.getId());
+    }
+
+    @Test
+    @DisplayName("save writes a CREATED change for the saved user")
+    @Order(20)
+    void save_WritesCreatedChange_WhenSuccessful() {
+        var userToSave = userUtils.newSavedUser();
+        var savedUser = userToSave.withId(99L);
+
+        BDDMockito.when(repository.save(userToSave)).thenReturn(savedUser);
+
+        service.save(userToSave);
+
+        BDDMockito.then(changeRepository).should().save(ArgumentMatchers.argThat(change ->
+                change.getType() == UserChange.Type.CREATED && change.getUserId() == 99L
+                        && change.getEmail().equals(savedUser.getEmail()) && change.getChangeOffset() == null));
+    }
+
+    @Test
+    @DisplayName("delete scrubs the earlier changes of the user and writes a DELETED change carrying only the user id")
+    @Order(21)
+    void delete_WritesDeletedChange_WhenSuccessful() {
+        var id = 99L;
+        BDDMockito.when(repository.removeById(id)).thenReturn(1);
+
+        service.delete(id);
+
+        var inOrder = BDDMockito.inOrder(changeRepository);
+        inOrder.verify(changeRepository).scrubByUserId(id);
+        inOrder.verify(changeRepository).save(ArgumentMatchers.argThat(change ->
+                change.getType() == UserChange.Type.DELETED && change.getUserId() == id && change.getEmail() == null));
+    }
+
+    @Test
+    @DisplayName("findAllById answers cached users from memory and loads the others in chunked IN queries")
+    @Order(22)
+    void findAllById_QueriesOnlyUncachedIdsInChunks_WhenSomeAreCached() {
+        var cachedUser = usersList.getFirst();
+        BDDMockito.when(repository.findById(cachedUser.getId())).thenReturn(Optional.of(cachedUser));
+        BDDMockito.when(repository.findByIdIn(List.of(3L, 99L))).thenReturn(List.of(usersList.get(2)));
+        BDDMockito.when(repository.findByIdIn(List.of(2L))).thenReturn(List.of(usersList.get(1)));
+
+        service.findByIdOrThrowNotFound(cachedUser.getId());
+        var users = service.findAllById(List.of(3L, 1L, 99L, 2L));
+
+        Assertions.assertThat(users).containsOnlyKeys(3L, 1L, 2L);
+        Assertions.assertThat(users.keySet()).containsExactly(3L, 1L, 2L);
+        BDDMockito.then(repository).should(Mockito.never()).findByIdIn(ArgumentMatchers.argThat(ids -> ids.contains(1L)));
+    }
+
+    @Test
+    @DisplayName("update keeps reads on the primary for the read-your-writes window")
+    @Order(23)
+    void update_OpensReadYourWritesWindow_WhenSuccessful() {
+        var userToUpdate = usersList.getFirst().withVersion(null);
+        BDDMockito.when(repository.updateById(userToUpdate.getId(), userToUpdate.getFirstName(), userToUpdate.getLastName(), userToUpdate.getEmail()))
+                .thenReturn(1);
+
+        Assertions.assertThat(readYourWrites.isOpen()).isFalse();
+        service.update(userToUpdate);
+
+        Assertions.assertThat(readYourWrites.isOpen()).isTrue();
+    }
+
+    @Test
+    @DisplayName("save updates the e-mail and search indexes only once its transaction commits")
+    @Order(24)
+    void save_IndexesUserAfterCommit_WhenInsideTransaction() {
+        var userToSave = userUtils.newSavedUser();
+        BDDMockito.when(repository.save(userToSave)).thenReturn(userToSave);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.save(userToSave);
+            BDDMockito.then(emailIndex).should(Mockito.never()).put(ArgumentMatchers.any());
+            BDDMockito.then(searchIndex).should(Mockito.never()).index(ArgumentMatchers.any(User.class));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        BDDMockito.then(emailIndex).should().put(userToSave.getEmail());
+        BDDMockito.then(searchIndex).should().index(userToSave);
+    }
+
+    @Test
+    @DisplayName("update throws EmailExistsException when the email is reserved by a pending write-behind signup")
+    @Order(25)
+    void update_ThrowsEmailExistsException_WhenEmailIsReserved() {
+        var userToUpdate = usersList.getFirst().withEmail(userUtils.newEmailUser());
+        BDDMockito.when(emailIndex.isReserved(userToUpdate.getEmail())).thenReturn(true);
 
         Assertions.assertThatException()
                 .isThrownBy(() -> service.update(userToUpdate))
                 .isInstanceOf(EmailExistsException.class);
+        BDDMockito.then(repository).should(Mockito.never())
+                .updateByIdAndVersion(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("saveReserved saves a user whose email the caller reserved")
+    @Order(26)
+    void saveReserved_SavesUser_WhenEmailIsReservedByCaller() {
+        var userToSave = userUtils.newSavedUser();
+        BDDMockito.when(emailIndex.mightContain(userToSave.getEmail())).thenReturn(false);
+        BDDMockito.when(repository.save(userToSave)).thenReturn(userToSave);
+
+        Assertions.assertThat(service.saveReserved(userToSave)).isEqualTo(userToSave);
+        BDDMockito.then(emailIndex).should(Mockito.never()).isReserved(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("findById hands every caller a copy of the cached user")
+    @Order(27)
+    void findById_ReturnsCopyOfCachedUser_WhenCallerChangesIt() {
+        var userToFind = usersList.getFirst();
+        var firstName = userToFind.getFirstName();
+        BDDMockito.when(repository.findById(userToFind.getId())).thenReturn(Optional.of(userToFind));
+
+        service.findByIdOrThrowNotFound(userToFind.getId()).setFirstName("Changed");
+        userToFind.setFirstName("Changed by the persistence context");
+
+        Assertions.assertThat(service.findByIdOrThrowNotFound(userToFind.getId()).getFirstName()).isEqualTo(firstName);
+    }
+
+    @Test
+    @DisplayName("delete evicts the cached user only once its transaction commits")
+    @Order(28)
+    void delete_InvalidatesCacheAfterCommit_WhenInsideTransaction() {
+        var userToDelete = usersList.getFirst();
+        BDDMockito.when(repository.findById(userToDelete.getId())).thenReturn(Optional.of(userToDelete));
+        BDDMockito.when(repository.removeById(userToDelete.getId())).thenReturn(1);
+        service.findByIdOrThrowNotFound(userToDelete.getId());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.delete(userToDelete.getId());
+            service.findByIdOrThrowNotFound(userToDelete.getId());
+            BDDMockito.then(repository).should(Mockito.times(1)).findById(userToDelete.getId());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        service.findByIdOrThrowNotFound(userToDelete.getId());
+        BDDMockito.then(repository).should(Mockito.times(2)).findById(userToDelete.getId());
     }
-}
\ No newline at end of file
+}
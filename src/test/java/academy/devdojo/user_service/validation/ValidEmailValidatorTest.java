@@ -0,0 +1,83 @@
+package academy.devdojo.user_service.validation;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import jakarta.validation.constraints.Email;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+
+import java.util.Random;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ValidEmailValidatorTest {
+    private static final String ALPHABET = "ab-_.@Z9 +ã";
+    private static ValidatorFactory validatorFactory;
+    private static Validator validator;
+
+    @BeforeAll
+    static void init() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @AfterAll
+    static void close() {
+        validatorFactory.close();
+    }
+
+    @ParameterizedTest
+    @CsvFileSource(resources = "/validation/email-corpus.csv", numLinesToSkip = 1)
+    @DisplayName("isValidEmail matches the expected result and the legacy @Email regexp for the corpus")
+    @Order(1)
+    void isValidEmail_MatchesLegacyEmailConstraint_ForCorpus(String email, boolean valid) {
+        Assertions.assertThat(ValidEmailValidator.isValidEmail(email)).isEqualTo(valid);
+        Assertions.assertThat(isValidLegacyEmail(email)).isEqualTo(valid);
+    }
+
+    @Test
+    @DisplayName("isValidEmail matches the legacy @Email regexp for generated addresses")
+    @Order(2)
+    void isValidEmail_MatchesLegacyEmailConstraint_ForGeneratedAddresses() {
+        var random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            var email = randomEmail(random);
+            Assertions.assertThat(ValidEmailValidator.isValidEmail(email)).as(email).isEqualTo(isValidLegacyEmail(email));
+        }
+    }
+
+    @Test
+    @DisplayName("isValidEmail rejects oversized addresses and long labels")
+    @Order(3)
+    void isValidEmail_ReturnsFalse_WhenAddressIsOversized() {
+        Assertions.assertThat(ValidEmailValidator.isValidEmail("a".repeat(65) + "@email.com")).isFalse();
+        Assertions.assertThat(ValidEmailValidator.isValidEmail("ana@" + "a".repeat(64) + ".com")).isFalse();
+        Assertions.assertThat(ValidEmailValidator.isValidEmail("ana@" + "a.".repeat(130) + "com")).isFalse();
+        Assertions.assertThat(ValidEmailValidator.isValidEmail("a@" + "a.".repeat(100_000) + "a")).isFalse();
+    }
+
+    private static boolean isValidLegacyEmail(String email) {
+        return validator.validateValue(LegacyEmail.class, "email", email).isEmpty();
+    }
+
+    private static String randomEmail(Random random) {
+        var local = randomPart(random, 1 + random.nextInt(6));
+        var domain = randomPart(random, 1 + random.nextInt(10));
+        return local + (random.nextInt(10) == 0 ? "" : "@") + domain;
+    }
+
+    private static String randomPart(Random random, int length) {
+        var part = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            part.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return part.toString();
+    }
+
+    private static class LegacyEmail {
+        @Email(regexp = "^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$")
+        private String email;
+    }
+}
@@ -0,0 +1,193 @@
+package academy.devdojo.user_service.writebehind;
+
+import academy.devdojo.exception.EmailExistsException;
+import academy.devdojo.user_service.cache.UserEmailIndex;
+import academy.devdojo.user_service.commons.UserUtils;
+import academy.devdojo.user_service.concurrency.UserBulkhead;
+import academy.devdojo.user_service.config.UserConcurrencyProperties;
+import academy.devdojo.user_service.config.UserWriteBehindProperties;
+import academy.devdojo.user_service.domain.User;
+import academy.devdojo.user_service.projection.UserSummary;
+import academy.devdojo.user_service.repository.UserRepository;
+import academy.devdojo.user_service.response.UserBatchItemResponse;
+import academy.devdojo.user_service.response.UserBatchPostResponse;
+import academy.devdojo.user_service.response.UserWriteGetResponse;
+import academy.devdojo.user_service.service.UserImportService;
+import academy.devdojo.user_service.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+@ExtendWith(MockitoExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class UserWriteBehindTest {
+    @Mock
+    private UserService service;
+    @Mock
+    private UserImportService importService;
+    @Mock
+    private UserRepository repository;
+    @TempDir
+    private Path directory;
+    private UserEmailIndex emailIndex;
+    private UserWriteBehind writeBehind;
+    private User user;
+
+    @BeforeEach
+    void init() throws IOException {
+        emailIndex = new UserEmailIndex(repository);
+        writeBehind = newWriteBehind();
+        user = new UserUtils().newSavedUser().withId(null).withVersion(null);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        writeBehind.destroy();
+    }
+
+    @Test
+    @DisplayName("submit returns a pending write and reserves its email until it is drained")
+    @Order(1)
+    void submit_ReturnsPendingWrite_WhenEmailIsFree() {
+        var write = writeBehind.submit(user);
+
+        Assertions.assertThat(write.getStatus()).isEqualTo(UserWriteGetResponse.Status.PENDING);
+        Assertions.assertThat(writeBehind.findByTrackingId(write.getTrackingId())).contains(write);
+        Assertions.assertThatException()
+                .isThrownBy(() -> writeBehind.submit(user.withFirstName("Other")))
+                .isInstanceOf(EmailExistsException.class);
+    }
+
+    @Test
+    @DisplayName("drain writes the pending users through the import and keeps their outcome")
+    @Order(2)
+    void drain_CompletesWrites_WhenImportSucceeds() {
+        var write = writeBehind.submit(user);
+        BDDMockito.when(importService.importAll(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(new UserBatchPostResponse(1, 0, List.of(new UserBatchItemResponse(0, UserBatchItemResponse.Status.CREATED, 7L, List.of()))));
+
+        Assertions.assertThat(writeBehind.drain()).isOne();
+
+        Assertions.assertThat(writeBehind.findByTrackingId(write.getTrackingId())).hasValueSatisfying(completed -> {
+            Assertions.assertThat(completed.getStatus()).isEqualTo(UserWriteGetResponse.Status.CREATED);
+            Assertions.assertThat(completed.getId()).isEqualTo(7L);
+        });
+        Assertions.assertThat(emailIndex.isReserved(user.getEmail())).isFalse();
+        Assertions.assertThat(writeBehind.drain()).isZero();
+    }
+
+    @Test
+    @DisplayName("a restart replays the writes that were not drained, taking the ones already in the database as created")
+    @Order(3)
+    void drain_ReplaysPendingWrites_WhenRestarted() throws IOException {
+        var write = writeBehind.submit(user);
+        writeBehind.destroy();
+
+        emailIndex = new UserEmailIndex(repository);
+        writeBehind = newWriteBehind();
+        Assertions.assertThat(writeBehind.findByTrackingId(write.getTrackingId()))
+                .hasValueSatisfying(replayed -> Assertions.assertThat(replayed.getStatus()).isEqualTo(UserWriteGetResponse.Status.PENDING));
+        Assertions.assertThat(emailIndex.isReserved(user.getEmail())).isTrue();
+
+        BDDMockito.when(importService.importAll(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(new UserBatchPostResponse(0, 1, List.of(new UserBatchItemResponse(0, UserBatchItemResponse.Status.EMAIL_EXISTS, null, List.of()))));
+        BDDMockito.when(repository.findSummariesByEmailIn(List.of(user.getEmail())))
+                .thenReturn(List.of(new UserSummary(7L, user.getFirstName(), user.getLastName(), user.getEmail())));
+
+        writeBehind.drain();
+
+        Assertions.assertThat(writeBehind.findByTrackingId(write.getTrackingId())).hasValueSatisfying(completed -> {
+            Assertions.assertThat(completed.getStatus()).isEqualTo(UserWriteGetResponse.Status.CREATED);
+            Assertions.assertThat(completed.getId()).isEqualTo(7L);
+        });
+    }
+
+    @Test
+    @DisplayName("drain keeps the emails reserved for other writers until the import reports the outcome")
+    @Order(4)
+    void drain_KeepsReservationsDuringImport_WhenBatchIsWritten() {
+        var write = writeBehind.submit(user);
+        BDDMockito.when(importService.importAll(ArgumentMatchers.any(), ArgumentMatchers.eq(Set.of(user.getEmail())))).thenAnswer(invocation -> {
+            Assertions.assertThat(emailIndex.isReserved(user.getEmail())).isTrue();
+            return new UserBatchPostResponse(1, 0, List.of(new UserBatchItemResponse(0, UserBatchItemResponse.Status.CREATED, 7L, List.of())));
+        });
+
+        writeBehind.drain();
+
+        Assertions.assertThat(writeBehind.findByTrackingId(write.getTrackingId()))
+                .hasValueSatisfying(completed -> Assertions.assertThat(completed.getStatus()).isEqualTo(UserWriteGetResponse.Status.CREATED));
+        Assertions.assertThat(emailIndex.isReserved(user.getEmail())).isFalse();
+    }
+
+    @Test
+    @DisplayName("drain keeps the reservations of a batch whose import failed, so the retry still owns them")
+    @Order(5)
+    void drain_KeepsReservations_WhenImportFails() {
+        writeBehind.submit(user);
+        BDDMockito.when(importService.importAll(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenThrow(new IllegalStateException("database down"));
+
+        Assertions.assertThatException()
+                .isThrownBy(() -> writeBehind.drain())
+                .isInstanceOf(IllegalStateException.class);
+        Assertions.assertThat(emailIndex.isReserved(user.getEmail())).isTrue();
+    }
+
+    @Test
+    @DisplayName("drain reports a first write whose email was taken as EMAIL_EXISTS, even by a user with the same name")
+    @Order(6)
+    void drain_ReportsEmailExists_WhenFirstWriteFindsSameNameUser() {
+        var write = writeBehind.submit(user);
+        BDDMockito.when(importService.importAll(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(new UserBatchPostResponse(0, 1, List.of(new UserBatchItemResponse(0, UserBatchItemResponse.Status.EMAIL_EXISTS, null, List.of()))));
+
+        writeBehind.drain();
+
+        Assertions.assertThat(writeBehind.findByTrackingId(write.getTrackingId()))
+                .hasValueSatisfying(completed -> Assertions.assertThat(completed.getStatus()).isEqualTo(UserWriteGetResponse.Status.EMAIL_EXISTS));
+        BDDMockito.then(repository).should(Mockito.never()).findSummariesByEmailIn(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("drain takes a same-name user as already written when it retries a batch whose import failed")
+    @Order(7)
+    void drain_TakesSameNameUserAsCreated_WhenBatchIsRetried() {
+        var write = writeBehind.submit(user);
+        BDDMockito.when(importService.importAll(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenThrow(new IllegalStateException("connection lost after commit"))
+                .thenReturn(new UserBatchPostResponse(0, 1, List.of(new UserBatchItemResponse(0, UserBatchItemResponse.Status.EMAIL_EXISTS, null, List.of()))));
+        BDDMockito.when(repository.findSummariesByEmailIn(List.of(user.getEmail())))
+                .thenReturn(List.of(new UserSummary(7L, user.getFirstName(), user.getLastName(), user.getEmail())));
+
+        Assertions.assertThatException().isThrownBy(() -> writeBehind.drain());
+        writeBehind.drain();
+
+        Assertions.assertThat(writeBehind.findByTrackingId(write.getTrackingId())).hasValueSatisfying(completed -> {
+            Assertions.assertThat(completed.getStatus()).isEqualTo(UserWriteGetResponse.Status.CREATED);
+            Assertions.assertThat(completed.getId()).isEqualTo(7L);
+        });
+    }
+
+    private UserWriteBehind newWriteBehind() throws IOException {
+        var properties = new UserWriteBehindProperties(true, directory, DataSize.ofKilobytes(4), true,
+                Duration.ofMillis(100), 500, Duration.ofHours(1), 1000);
+        var registry = new SimpleMeterRegistry();
+        var bulkhead = new UserBulkhead(new UserConcurrencyProperties(1, Duration.ofMillis(20), Duration.ofSeconds(1), false,
+                Duration.ofMillis(20), Duration.ofSeconds(1)), registry);
+        return new UserWriteBehind(service, importService, repository, emailIndex, bulkhead, properties, registry);
+    }
+}
@@ -0,0 +1,101 @@
+package academy.devdojo.user_service.writebehind;
+
+import academy.devdojo.user_service.writebehind.UserWriteLog.Entry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class UserWriteLogTest {
+    private static final int SEGMENT_SIZE = 256;
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("read returns the entries after a position and a reopened log starts from the committed checkpoint")
+    @Order(1)
+    void read_ReturnsEntriesAfterCheckpoint_WhenLogIsReopened() throws IOException {
+        var entries = IntStream.range(0, 3).mapToObj(UserWriteLogTest::newEntry).toList();
+        try (var writeLog = new UserWriteLog(directory, SEGMENT_SIZE, true)) {
+            for (var entry : entries) {
+                writeLog.append(entry);
+            }
+            var batch = writeLog.read(writeLog.checkpoint(), 2);
+            Assertions.assertThat(batch.entries()).containsExactlyElementsOf(entries.subList(0, 2));
+            writeLog.commit(batch.end());
+        }
+
+        try (var writeLog = new UserWriteLog(directory, SEGMENT_SIZE, true)) {
+            Assertions.assertThat(writeLog.read(writeLog.checkpoint(), 10).entries()).containsExactly(entries.get(2));
+        }
+    }
+
+    @Test
+    @DisplayName("append rolls to a new segment when the current one is full and commit deletes the drained ones")
+    @Order(2)
+    void append_RollsSegment_WhenSegmentIsFull() throws IOException {
+        var entries = IntStream.range(0, 10).mapToObj(UserWriteLogTest::newEntry).toList();
+        try (var writeLog = new UserWriteLog(directory, SEGMENT_SIZE, true)) {
+            for (var entry : entries) {
+                writeLog.append(entry);
+            }
+            Assertions.assertThat(segmentCount()).isGreaterThan(1);
+
+            var batch = writeLog.read(writeLog.checkpoint(), entries.size());
+            Assertions.assertThat(batch.entries()).containsExactlyElementsOf(entries);
+            Assertions.assertThat(batch.end()).isEqualTo(writeLog.end());
+
+            writeLog.commit(batch.end());
+            Assertions.assertThat(segmentCount()).isOne();
+        }
+    }
+
+    @Test
+    @DisplayName("a reopened log wipes a torn record at its end and appends after the last complete one")
+    @Order(3)
+    void append_WritesAfterLastCompleteRecord_WhenLastRecordIsTorn() throws IOException {
+        var first = newEntry(0);
+        UserWriteLog.Position end;
+        try (var writeLog = new UserWriteLog(directory, SEGMENT_SIZE, true)) {
+            end = writeLog.append(first);
+            writeLog.append(newEntry(1));
+        }
+        try (var segment = new RandomAccessFile(segmentFile().toFile(), "rw")) {
+            segment.seek(end.offset() + 20);
+            segment.writeInt(0xBADC0DE);
+        }
+
+        var next = newEntry(2);
+        try (var writeLog = new UserWriteLog(directory, SEGMENT_SIZE, true)) {
+            Assertions.assertThat(writeLog.end()).isEqualTo(end);
+            writeLog.append(next);
+        }
+
+        try (var writeLog = new UserWriteLog(directory, SEGMENT_SIZE, true)) {
+            Assertions.assertThat(writeLog.read(writeLog.checkpoint(), 10).entries()).containsExactly(first, next);
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".log")).count();
+        }
+    }
+
+    private Path segmentFile() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+    }
+
+    private static Entry newEntry(int i) {
+        return new Entry(UUID.randomUUID(), "Name " + i, "Ção " + i, "user%d@devdojo.academy".formatted(i));
+    }
+}